@@ -0,0 +1,46 @@
+package vice.customskyboxes;
+
+import net.minecraft.util.ResourceLocation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates skybox files for the benchmarks, a mix of mono color and square textured
+ * skyboxes with conditions, as found in larger packs.
+ */
+public final class SampleSkyboxes {
+    private SampleSkyboxes() {
+    }
+
+    /**
+     * @param count The number of files.
+     * @return The contents of every file by id, in load order.
+     */
+    public static Map<ResourceLocation, byte[]> files(int count) {
+        Map<ResourceLocation, byte[]> files = new LinkedHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            files.put(new ResourceLocation("bench", "sky/skybox_" + i + ".json"), json(i).getBytes(StandardCharsets.UTF_8));
+        }
+        return files;
+    }
+
+    public static String json(int i) {
+        String properties = "\"properties\": {\"fade\": {\"startFadeIn\": " + (i % 24000) + ", \"endFadeIn\": " + ((i + 1000) % 24000)
+                + ", \"startFadeOut\": " + ((i + 12000) % 24000) + ", \"endFadeOut\": " + ((i + 13000) % 24000) + "},"
+                + " \"transitionSpeed\": 0.05, \"shouldRotate\": true, \"rotation\": {\"static\": [0, " + (i % 360) + ", 0], \"axis\": [0, 0, 90], \"rotationSpeed\": 1.0}}";
+        String conditions = "\"conditions\": {\"worlds\": [\"bench:world_" + (i % 50) + "\"], \"weather\": [\"clear\", \"rain\"],"
+                + " \"heights\": [{\"min\": " + (i % 10) * 16 + ", \"max\": " + ((i % 10) * 16 + 64) + "}],"
+                + " \"biomes\": [\"minecraft:plains\", \"minecraft:forest\", \"bench:biome_" + (i % 20) + "\"]}";
+        if (i % 2 == 0) {
+            return "{\"schemaVersion\": 2, \"type\": \"monocolor\", " + properties + ", " + conditions + ","
+                    + " \"color\": {\"red\": 0.5, \"green\": 0.25, \"blue\": 0.75}}";
+        }
+        return "{\"schemaVersion\": 2, \"type\": \"square-textured\", " + properties + ", " + conditions + ","
+                + " \"blend\": {\"type\": \"add\"}, \"textures\": {"
+                + "\"north\": \"bench:sky/" + i + "/north.png\", \"south\": \"bench:sky/" + i + "/south.png\","
+                + " \"east\": \"bench:sky/" + i + "/east.png\", \"west\": \"bench:sky/" + i + "/west.png\","
+                + " \"top\": \"bench:sky/" + i + "/top.png\", \"bottom\": \"bench:sky/" + i + "/bottom.png\"}}";
+    }
+}
@@ -0,0 +1,82 @@
+package vice.customskyboxes;
+
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.util.registry.WorldGenRegistries;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.Biomes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import vice.customskyboxes.resource.SkyboxDecodeReport;
+import vice.customskyboxes.resource.SkyboxDecoder;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating every skybox each frame with evaluating only the candidates of the
+ * {@link SkyboxIndex}, for 1,000 skyboxes spread over 50 dimensions. Every operation
+ * evaluates one frame in each of the dimensions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SkyboxIndexBenchmark {
+    private static final int SKYBOX_COUNT = 1000;
+    private static final int DIMENSION_COUNT = 50;
+
+    private AbstractSkybox[] skyboxes;
+    private SkyboxIndex index;
+    private SkyEnvironment[] environments;
+    private final BitSet candidates = new BitSet(SKYBOX_COUNT);
+
+    @Setup
+    public void setUp() {
+        Bootstrap.bootStrap();
+        this.skyboxes = SkyboxDecoder.decodeAll(SampleSkyboxes.files(SKYBOX_COUNT), Runnable::run, new SkyboxDecodeReport()).join()
+                .values().stream().filter(Objects::nonNull).toArray(AbstractSkybox[]::new);
+        this.index = new SkyboxIndex(this.skyboxes);
+
+        Registry<Biome> biomes = WorldGenRegistries.BIOME;
+        Biome plains = biomes.getOrThrow(Biomes.PLAINS);
+        this.environments = new SkyEnvironment[DIMENSION_COUNT];
+        for (int i = 0; i < DIMENSION_COUNT; i++) {
+            this.environments[i] = new SkyEnvironment(6000, new ResourceLocation("bench", "world_" + i), Biomes.PLAINS.location(), biomes.getId(plains),
+                    biomes, plains.getPrecipitation(), false, false, 64 + i % 32, new BitSet());
+        }
+    }
+
+    @Benchmark
+    public void everySkybox(Blackhole blackhole) {
+        for (SkyEnvironment environment : this.environments) {
+            for (AbstractSkybox skybox : this.skyboxes) {
+                blackhole.consume(skybox.getAlpha(environment));
+            }
+        }
+    }
+
+    @Benchmark
+    public void indexedCandidates(Blackhole blackhole) {
+        for (SkyEnvironment environment : this.environments) {
+            this.index.collect(environment, this.candidates);
+            for (int i = this.candidates.nextSetBit(0); i >= 0; i = this.candidates.nextSetBit(i + 1)) {
+                blackhole.consume(this.skyboxes[i].getAlpha(environment));
+            }
+        }
+    }
+}
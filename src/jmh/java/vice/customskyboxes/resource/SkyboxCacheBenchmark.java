@@ -0,0 +1,86 @@
+package vice.customskyboxes.resource;
+
+import com.google.common.hash.HashCode;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vice.customskyboxes.SampleSkyboxes;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the skybox part of a cold launch, which decodes every file and writes the cache,
+ * with a warm launch, which finds every file unchanged and reads the cache instead. Both
+ * hash the file contents first, as the cache key depends on them. Reading the files from
+ * the resource packs is the same in both cases and left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SkyboxCacheBenchmark {
+    private static final String KEY = "benchmark";
+
+    @Param({"50", "500"})
+    public int skyboxCount;
+
+    private Map<ResourceLocation, byte[]> files;
+    private Path directory;
+    private SkyboxCache coldCache;
+    private SkyboxCache warmCache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.files = SampleSkyboxes.files(this.skyboxCount);
+        this.directory = Files.createTempDirectory("skybox-cache-benchmark");
+        this.coldCache = new SkyboxCache(this.directory.resolve("cold.cache"));
+        this.warmCache = new SkyboxCache(this.directory.resolve("warm.cache"));
+        this.warmCache.write(KEY, SkyboxDecoder.decodeAll(this.files, Runnable::run, new SkyboxDecodeReport()).join());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.directory.resolve("cold.cache"));
+        Files.deleteIfExists(this.directory.resolve("warm.cache"));
+        Files.deleteIfExists(this.directory);
+    }
+
+    private Map<ResourceLocation, HashCode> hashAll() {
+        Map<ResourceLocation, HashCode> hashes = new LinkedHashMap<>(this.files.size());
+        this.files.forEach((id, content) -> hashes.put(id, SkyboxCache.hashContent(content)));
+        return hashes;
+    }
+
+    @Benchmark
+    public Map<ResourceLocation, AbstractSkybox> coldLaunch() {
+        this.hashAll();
+        Map<ResourceLocation, AbstractSkybox> skyboxes = SkyboxDecoder.decodeAll(this.files, Runnable::run, new SkyboxDecodeReport()).join();
+        this.coldCache.write(KEY, skyboxes);
+        return skyboxes;
+    }
+
+    @Benchmark
+    public Map<ResourceLocation, AbstractSkybox> warmLaunch() {
+        this.hashAll();
+        return this.warmCache.read(KEY);
+    }
+}
@@ -0,0 +1,70 @@
+package vice.customskyboxes.resource;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import vice.customskyboxes.SampleSkyboxes;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.skyboxes.SkyboxType;
+import vice.customskyboxes.util.object.internal.Metadata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding parsed skybox json in a single codec pass with the old way, which
+ * decoded every object through {@link Metadata#CODEC} first and then again through the
+ * codec of its type. Parsing the json is the same for both and done up front.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SkyboxDecodeBenchmark {
+    private static final int COUNT = 100;
+
+    private final ResourceLocation[] ids = new ResourceLocation[COUNT];
+    private final JsonObject[] objects = new JsonObject[COUNT];
+
+    @Setup
+    public void setUp() {
+        int i = 0;
+        for (Map.Entry<ResourceLocation, byte[]> file : SampleSkyboxes.files(COUNT).entrySet()) {
+            this.ids[i] = file.getKey();
+            this.objects[i] = new JsonParser().parse(new String(file.getValue(), StandardCharsets.UTF_8)).getAsJsonObject();
+            i++;
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        SkyboxDecodeReport report = new SkyboxDecodeReport();
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(SkyboxDecoder.decode(this.ids[i], this.objects[i], report));
+        }
+    }
+
+    @Benchmark
+    public void metadataThenType(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            Metadata metadata = Metadata.CODEC.decode(JsonOps.INSTANCE, this.objects[i]).getOrThrow(false, System.err::println).getFirst();
+            SkyboxType<? extends AbstractSkybox> type = SkyboxType.REGISTRY.getValue(metadata.getType());
+            blackhole.consume(type.getCodec(metadata.getSchemaVersion()).decode(JsonOps.INSTANCE, this.objects[i]).getOrThrow(false, System.err::println).getFirst());
+        }
+    }
+}
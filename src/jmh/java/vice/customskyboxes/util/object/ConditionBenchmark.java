@@ -0,0 +1,144 @@
+package vice.customskyboxes.util.object;
+
+import net.minecraft.potion.Effect;
+import net.minecraft.potion.Effects;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.util.registry.WorldGenRegistries;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.Biomes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import vice.customskyboxes.SampleSkyboxes;
+import vice.customskyboxes.SkyEnvironment;
+import vice.customskyboxes.resource.SkyboxDecodeReport;
+import vice.customskyboxes.resource.SkyboxDecoder;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled conditions of skyboxes with the old walk over their condition lists,
+ * which checked biomes, heights, weather and then effects for every skybox. Every operation
+ * checks each of 1,000 skyboxes against a few environments that cover matching and failing
+ * dimensions, heights and weathers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ConditionBenchmark {
+    private static final int SKYBOX_COUNT = 1000;
+
+    private AbstractSkybox[] skyboxes;
+    private CompiledConditions[] compiled;
+    private SkyEnvironment[] environments;
+    private int blindness;
+
+    @Setup
+    public void setUp() {
+        Bootstrap.bootStrap();
+        this.skyboxes = SkyboxDecoder.decodeAll(SampleSkyboxes.files(SKYBOX_COUNT), Runnable::run, new SkyboxDecodeReport()).join()
+                .values().stream().filter(Objects::nonNull).toArray(AbstractSkybox[]::new);
+        this.compiled = new CompiledConditions[this.skyboxes.length];
+        for (int i = 0; i < this.skyboxes.length; i++) {
+            AbstractSkybox skybox = this.skyboxes[i];
+            this.compiled[i] = CompiledConditions.compile(skybox.getWorlds(), skybox.getWeather(), skybox.getHeightRanges(), skybox.getEffects(), skybox.getBiomeCondition());
+        }
+        this.blindness = Effect.getId(Effects.BLINDNESS);
+
+        Registry<Biome> biomes = WorldGenRegistries.BIOME;
+        Biome plains = biomes.getOrThrow(Biomes.PLAINS);
+        Biome desert = biomes.getOrThrow(Biomes.DESERT);
+        this.environments = new SkyEnvironment[]{
+                // matches the skyboxes of world 0 at most heights
+                environment(biomes, plains, "world_0", 70, false, false),
+                // the right world, the wrong biome
+                environment(biomes, desert, "world_1", 70, false, false),
+                // the right world, too high
+                environment(biomes, plains, "world_2", 250, false, false),
+                // the right world in a thunderstorm, where skyboxes for clear weather still show
+                environment(biomes, plains, "world_3", 70, true, true),
+                // no skybox shows in this world
+                environment(biomes, plains, "world_99", 70, true, false)
+        };
+    }
+
+    private static SkyEnvironment environment(Registry<Biome> biomes, Biome biome, String world, double playerY, boolean raining, boolean thundering) {
+        return new SkyEnvironment(6000, new ResourceLocation("bench", world), biomes.getKey(biome), biomes.getId(biome), biomes,
+                biome.getPrecipitation(), raining, thundering, playerY, new BitSet());
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        for (SkyEnvironment environment : this.environments) {
+            for (CompiledConditions conditions : this.compiled) {
+                blackhole.consume(conditions.test(environment));
+            }
+        }
+    }
+
+    @Benchmark
+    public void conditionWalk(Blackhole blackhole) {
+        for (SkyEnvironment environment : this.environments) {
+            for (AbstractSkybox skybox : this.skyboxes) {
+                blackhole.consume(this.checkBiomes(skybox, environment) && checkHeights(skybox, environment) && checkWeather(skybox, environment) && this.checkEffect(environment));
+            }
+        }
+    }
+
+    private boolean checkBiomes(AbstractSkybox skybox, SkyEnvironment environment) {
+        List<ResourceLocation> worlds = skybox.getWorlds();
+        if (worlds.isEmpty() || worlds.contains(environment.getDimension())) {
+            List<ResourceLocation> biomes = skybox.getBiomes();
+            if (biomes.isEmpty()) return true;
+            return biomes.contains(environment.getBiome());
+        }
+        return false;
+    }
+
+    private boolean checkEffect(SkyEnvironment environment) {
+        return !environment.getActiveEffects().get(this.blindness);
+    }
+
+    private static boolean checkHeights(AbstractSkybox skybox, SkyEnvironment environment) {
+        double playerHeight = environment.getPlayerY();
+        boolean inRange = false;
+        for (HeightEntry heightRange : skybox.getHeightRanges()) {
+            inRange = heightRange.getMin() < playerHeight && heightRange.getMax() > playerHeight;
+            if (inRange) break;
+        }
+        return skybox.getHeightRanges().isEmpty() || inRange;
+    }
+
+    private static boolean checkWeather(AbstractSkybox skybox, SkyEnvironment environment) {
+        List<String> weather = skybox.getWeather();
+        Biome.RainType precipitation = environment.getPrecipitation();
+        if (weather.size() > 0) {
+            if (weather.contains("thunder") && environment.isThundering()) {
+                return true;
+            } else if (weather.contains("snow") && environment.isRaining() && precipitation == Biome.RainType.SNOW) {
+                return true;
+            } else if (weather.contains("rain") && environment.isRaining() && !environment.isThundering()) {
+                return true;
+            } else return weather.contains("clear");
+        } else {
+            return true;
+        }
+    }
+}
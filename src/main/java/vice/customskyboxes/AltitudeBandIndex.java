@@ -0,0 +1,102 @@
+package vice.customskyboxes;
+
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.util.object.HeightIntervals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Maps the height of the player to the skyboxes whose height conditions may match it, found
+ * with a binary search over the bounds of every height range. Skyboxes are referred to by
+ * their position in the array the index was built from.
+ * <p>
+ * The bounds split the heights into bands: the bounds themselves and the open ranges between
+ * them. Every skybox either contains a whole band or none of it, so the matching skyboxes are
+ * stored once per band.
+ */
+public class AltitudeBandIndex {
+    /**
+     * Every distinct bound, ascending.
+     */
+    private final float[] bounds;
+    /**
+     * The skyboxes of every band. Band {@code 2 * i + 1} is bound {@code i}, the bands around it
+     * are the ranges below and above it.
+     */
+    private final BitSet[] bands;
+
+    public AltitudeBandIndex(AbstractSkybox[] skyboxes) {
+        HeightIntervals[] intervals = new HeightIntervals[skyboxes.length];
+        float[] allBounds = new float[0];
+        for (int i = 0; i < skyboxes.length; i++) {
+            AbstractSkybox skybox = skyboxes[i];
+            // always on skyboxes ignore their conditions
+            boolean anyHeight = skybox.getFade().isAlwaysOn() || skybox.getHeightRanges().isEmpty();
+            intervals[i] = anyHeight ? null : HeightIntervals.of(skybox.getHeightRanges());
+            if (!anyHeight) {
+                float[] skyboxBounds = intervals[i].getBounds();
+                int length = allBounds.length;
+                allBounds = Arrays.copyOf(allBounds, length + skyboxBounds.length);
+                System.arraycopy(skyboxBounds, 0, allBounds, length, skyboxBounds.length);
+            }
+        }
+        Arrays.sort(allBounds);
+        int distinct = 0;
+        for (float bound : allBounds) {
+            if (distinct == 0 || allBounds[distinct - 1] != bound) {
+                allBounds[distinct++] = bound;
+            }
+        }
+        this.bounds = Arrays.copyOf(allBounds, distinct);
+
+        this.bands = new BitSet[this.bounds.length * 2 + 1];
+        for (int band = 0; band < this.bands.length; band++) {
+            this.bands[band] = new BitSet(skyboxes.length);
+            double height = this.sampleHeight(band);
+            for (int i = 0; i < skyboxes.length; i++) {
+                if (intervals[i] == null || intervals[i].contains(height)) {
+                    this.bands[band].set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A height within the band.
+     */
+    private double sampleHeight(int band) {
+        if (band % 2 == 1) {
+            return this.bounds[band / 2];
+        }
+        int above = band / 2;
+        if (this.bounds.length == 0) {
+            return 0;
+        } else if (above == 0) {
+            return Math.nextDown((double) this.bounds[0]);
+        } else if (above == this.bounds.length) {
+            return Math.nextUp((double) this.bounds[above - 1]);
+        }
+        return ((double) this.bounds[above - 1] + this.bounds[above]) / 2.0D;
+    }
+
+    /**
+     * @return The skyboxes whose height conditions may match the height. Must not be modified.
+     */
+    public BitSet get(double height) {
+        int low = 0;
+        int high = this.bounds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (height < this.bounds[mid]) {
+                high = mid - 1;
+            } else if (height > this.bounds[mid]) {
+                low = mid + 1;
+            } else {
+                return this.bands[mid * 2 + 1];
+            }
+        }
+        // low is the number of bounds below the height
+        return this.bands[low * 2];
+    }
+}
@@ -43,7 +43,7 @@ class DistExecution
 {
     public static void clientStart()
     {
-        SkyboxResourceListener reloadListener = new SkyboxResourceListener();
+        SkyboxResourceListener reloadListener = SkyboxResourceListener.getInstance();
 
         IResourceManager resourceManager = Minecraft.getInstance().getResourceManager();
         if (resourceManager instanceof IReloadableResourceManager) {
@@ -0,0 +1,153 @@
+package vice.customskyboxes;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.entity.player.ClientPlayerEntity;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.potion.Effect;
+import net.minecraft.potion.EffectInstance;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import org.jetbrains.annotations.Nullable;
+import vice.customskyboxes.util.object.Weather;
+
+import java.util.BitSet;
+
+/**
+ * An immutable snapshot of everything skybox conditions depend on, captured once per frame
+ * by the {@link SkyboxManager} and shared by every skybox.
+ */
+public class SkyEnvironment {
+    private final long dayTime;
+    private final ResourceLocation dimension;
+    @Nullable
+    private final ResourceLocation biome;
+    /**
+     * The raw id of the biome in {@link #biomeRegistry}, -1 if it isn't registered.
+     */
+    private final int biomeId;
+    private final Registry<Biome> biomeRegistry;
+    private final Biome.RainType precipitation;
+    private final boolean raining;
+    private final boolean thundering;
+    private final double playerY;
+    /**
+     * The raw registry ids of the active status effects of the player.
+     */
+    private final BitSet activeEffects;
+    private final int weatherMask;
+
+    public SkyEnvironment(long dayTime, ResourceLocation dimension, @Nullable ResourceLocation biome, int biomeId, Registry<Biome> biomeRegistry, Biome.RainType precipitation, boolean raining, boolean thundering, double playerY, BitSet activeEffects) {
+        this.dayTime = dayTime;
+        this.dimension = dimension;
+        this.biome = biome;
+        this.biomeId = biomeId;
+        this.biomeRegistry = biomeRegistry;
+        this.precipitation = precipitation;
+        this.raining = raining;
+        this.thundering = thundering;
+        this.playerY = playerY;
+        this.activeEffects = activeEffects;
+
+        // clear skyboxes show in any weather
+        int mask = Weather.CLEAR.getMask();
+        if (thundering) {
+            mask |= Weather.THUNDER.getMask();
+        }
+        if (raining && precipitation == Biome.RainType.SNOW) {
+            mask |= Weather.SNOW.getMask();
+        }
+        if (raining && !thundering) {
+            mask |= Weather.RAIN.getMask();
+        }
+        this.weatherMask = mask;
+    }
+
+    /**
+     * Captures the current environment of the client.
+     *
+     * @return The snapshot, or null if there is no world or player.
+     */
+    @Nullable
+    public static SkyEnvironment capture(Minecraft client) {
+        ClientWorld world = client.level;
+        ClientPlayerEntity player = client.player;
+        if (world == null || player == null) {
+            return null;
+        }
+
+        Biome biome = world.getBiome(player.blockPosition());
+        Registry<Biome> biomeRegistry = world.registryAccess().registryOrThrow(Registry.BIOME_REGISTRY);
+        BitSet effects = new BitSet();
+        for (EffectInstance effectInstance : player.getActiveEffects()) {
+            effects.set(Effect.getId(effectInstance.getEffect()));
+        }
+
+        return new SkyEnvironment(
+                world.getDayTime(),
+                world.dimension().location(),
+                biomeRegistry.getKey(biome),
+                biomeRegistry.getId(biome),
+                biomeRegistry,
+                biome.getPrecipitation(),
+                world.isRaining(),
+                world.isThundering(),
+                player.getY(),
+                effects
+        );
+    }
+
+    public long getDayTime() {
+        return this.dayTime;
+    }
+
+    public ResourceLocation getDimension() {
+        return this.dimension;
+    }
+
+    @Nullable
+    public ResourceLocation getBiome() {
+        return this.biome;
+    }
+
+    public int getBiomeId() {
+        return this.biomeId;
+    }
+
+    /**
+     * @return The biome registry of the world, replaced with every world joined.
+     */
+    public Registry<Biome> getBiomeRegistry() {
+        return this.biomeRegistry;
+    }
+
+    public Biome.RainType getPrecipitation() {
+        return this.precipitation;
+    }
+
+    public boolean isRaining() {
+        return this.raining;
+    }
+
+    public boolean isThundering() {
+        return this.thundering;
+    }
+
+    public double getPlayerY() {
+        return this.playerY;
+    }
+
+    /**
+     * @return The raw registry ids of the active status effects of the player. Must not be modified.
+     */
+    public BitSet getActiveEffects() {
+        return this.activeEffects;
+    }
+
+    /**
+     * @return The {@link Weather#getMask() masks} of every weather a skybox may show in right now.
+     */
+    public int getWeatherMask() {
+        return this.weatherMask;
+    }
+}
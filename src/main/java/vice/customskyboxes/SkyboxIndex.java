@@ -0,0 +1,138 @@
+package vice.customskyboxes;
+
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps dimensions, biomes and heights to the skyboxes whose conditions may match them, so only
+ * those need to be evaluated each frame. Skyboxes are referred to by their position in the
+ * array the index was built from.
+ */
+public class SkyboxIndex {
+    private final AbstractSkybox[] skyboxes;
+    /**
+     * Skyboxes without dimension or biome conditions, and skyboxes that are always on.
+     */
+    private final BitSet wildcard = new BitSet();
+    /**
+     * Skyboxes with dimension conditions only.
+     */
+    private final Map<ResourceLocation, BitSet> byDimension = new HashMap<>();
+    /**
+     * Skyboxes with biome conditions only.
+     */
+    private final BitSet biomeOnly = new BitSet();
+    /**
+     * Skyboxes with both dimension and biome conditions, by dimension.
+     */
+    private final Map<ResourceLocation, BitSet> dimensionAndBiome = new HashMap<>();
+    private final AltitudeBandIndex byHeight;
+
+    /**
+     * The registry the biome conditions were last resolved against.
+     */
+    private Registry<Biome> biomeRegistry;
+    /**
+     * {@link #biomeOnly} by raw biome id, null for biomes no skybox shows in.
+     */
+    private BitSet[] byBiome = new BitSet[0];
+    /**
+     * {@link #dimensionAndBiome} by dimension, then raw biome id.
+     */
+    private final Map<ResourceLocation, BitSet[]> byDimensionAndBiome = new HashMap<>();
+
+    public SkyboxIndex(AbstractSkybox[] skyboxes) {
+        this.skyboxes = skyboxes;
+        this.byHeight = new AltitudeBandIndex(skyboxes);
+        for (int i = 0; i < skyboxes.length; i++) {
+            AbstractSkybox skybox = skyboxes[i];
+            List<ResourceLocation> worlds = skybox.getWorlds();
+            boolean anyBiome = skybox.getBiomeCondition().isEmpty();
+
+            if (skybox.getFade().isAlwaysOn() || (worlds.isEmpty() && anyBiome)) {
+                this.wildcard.set(i);
+            } else if (anyBiome) {
+                for (ResourceLocation world : worlds) {
+                    this.byDimension.computeIfAbsent(world, k -> new BitSet()).set(i);
+                }
+            } else if (worlds.isEmpty()) {
+                this.biomeOnly.set(i);
+            } else {
+                for (ResourceLocation world : worlds) {
+                    this.dimensionAndBiome.computeIfAbsent(world, k -> new BitSet()).set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the bits of every skybox whose dimension, biome and height conditions may match the environment.
+     *
+     * @param environment The environment of the current frame.
+     * @param candidates  Cleared, then filled with the candidate skyboxes.
+     */
+    public void collect(SkyEnvironment environment, BitSet candidates) {
+        candidates.clear();
+        candidates.or(this.wildcard);
+        orIfPresent(candidates, this.byDimension.get(environment.getDimension()));
+        int biomeId = environment.getBiomeId();
+        if (biomeId >= 0) {
+            if (environment.getBiomeRegistry() != this.biomeRegistry) {
+                this.resolveBiomes(environment.getBiomeRegistry());
+            }
+            orIfPresent(candidates, get(this.byBiome, biomeId));
+            BitSet[] dimensionBiomes = this.byDimensionAndBiome.get(environment.getDimension());
+            if (dimensionBiomes != null) {
+                orIfPresent(candidates, get(dimensionBiomes, biomeId));
+            }
+        }
+        candidates.and(this.byHeight.get(environment.getPlayerY()));
+    }
+
+    /**
+     * Resolves the biome conditions against a new registry, as raw ids differ between registries.
+     */
+    private void resolveBiomes(Registry<Biome> registry) {
+        int size = 0;
+        for (Biome biome : registry) {
+            size = Math.max(size, registry.getId(biome) + 1);
+        }
+        this.biomeRegistry = registry;
+        this.byBiome = this.byBiomeId(registry, this.biomeOnly, size);
+        this.byDimensionAndBiome.clear();
+        for (Map.Entry<ResourceLocation, BitSet> entry : this.dimensionAndBiome.entrySet()) {
+            this.byDimensionAndBiome.put(entry.getKey(), this.byBiomeId(registry, entry.getValue(), size));
+        }
+    }
+
+    private BitSet[] byBiomeId(Registry<Biome> registry, BitSet skyboxes, int size) {
+        BitSet[] result = new BitSet[size];
+        for (int i = skyboxes.nextSetBit(0); i >= 0; i = skyboxes.nextSetBit(i + 1)) {
+            BitSet biomeIds = this.skyboxes[i].getBiomeCondition().resolve(registry);
+            for (int id = biomeIds.nextSetBit(0); id >= 0 && id < size; id = biomeIds.nextSetBit(id + 1)) {
+                if (result[id] == null) {
+                    result[id] = new BitSet();
+                }
+                result[id].set(i);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet get(BitSet[] byBiome, int biomeId) {
+        return biomeId < byBiome.length ? byBiome[biomeId] : null;
+    }
+
+    private static void orIfPresent(BitSet target, BitSet bits) {
+        if (bits != null) {
+            target.or(bits);
+        }
+    }
+}
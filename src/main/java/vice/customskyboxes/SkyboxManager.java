@@ -2,21 +2,35 @@ package vice.customskyboxes;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import com.mojang.blaze3d.matrix.MatrixStack;
+import net.minecraft.client.Minecraft;
 import vice.customskyboxes.mixin.skybox.WorldRendererAccess;
+import vice.customskyboxes.render.SkyDecorationRenderer;
+import vice.customskyboxes.render.SkyStateTracker;
 import vice.customskyboxes.skyboxes.AbstractSkybox;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Objects;
-import java.util.function.Predicate;
-import java.util.stream.StreamSupport;
+import java.util.Set;
 
 public class SkyboxManager {
     private static final SkyboxManager INSTANCE = new SkyboxManager();
 
     public static final double MINIMUM_ALPHA = 0.001;
 
+    /**
+     * The order skyboxes are drawn in. Skyboxes of equal priority are grouped by blend state
+     * and texture, and otherwise stay in the order they were added in.
+     */
+    private static final Comparator<AbstractSkybox> DRAW_ORDER = Comparator.comparingInt(AbstractSkybox::getPriority)
+            .thenComparing(AbstractSkybox::getBlendKey)
+            .thenComparing(AbstractSkybox::getTextureKey);
+
     public static boolean shouldChangeFog;
     public static float fogRed;
     public static float fogBlue;
@@ -24,9 +38,22 @@ public class SkyboxManager {
 
     public static boolean renderSunriseAndSet;
 
-    private boolean decorationsRendered;
+    private final SkyDecorationRenderer decorationRenderer = new SkyDecorationRenderer();
+
+    /**
+     * Counts rendered frames. Skyboxes are evaluated at most once per value.
+     *
+     * @see #beginFrame()
+     */
+    private long frame;
+    private long evaluatedFrame = -1;
+    private float totalAlpha;
+
+    /**
+     * The environment of the current frame, null when there is no world or player.
+     */
+    private SkyEnvironment environment;
 
-    private final Predicate<? super AbstractSkybox> renderPredicate = (skybox) -> !this.activeSkyboxes.contains(skybox) && skybox.alpha >= MINIMUM_ALPHA;
     private final ArrayList<AbstractSkybox> skyboxes = new ArrayList<>();
     /**
      * Stores a list of permanent skyboxes
@@ -34,10 +61,41 @@ public class SkyboxManager {
      * @see #addPermanentSkybox(AbstractSkybox)
      */
     private final ArrayList<AbstractSkybox> permanentSkyboxes = new ArrayList<>();
-    private final LinkedList<AbstractSkybox> activeSkyboxes = new LinkedList<>();
+
+    /**
+     * Every skybox and every permanent skybox in draw order, rebuilt together with the index
+     * whenever either list changes.
+     */
+    private AbstractSkybox[] installedSkyboxes = new AbstractSkybox[0];
+    private SkyboxIndex index = new SkyboxIndex(this.installedSkyboxes);
+    private boolean indexDirty;
+    /**
+     * Skyboxes that have to be evaluated this frame, by position in {@link #installedSkyboxes}.
+     */
+    private BitSet candidates = new BitSet();
+    /**
+     * Skyboxes whose alpha was above zero after their last evaluation, which have to keep
+     * being evaluated so they can fade out.
+     */
+    private BitSet liveSkyboxes = new BitSet();
+    /**
+     * Skyboxes visible enough to be drawn this frame.
+     */
+    private BitSet activeSkyboxes = new BitSet();
+    /**
+     * The skyboxes to draw this frame, in draw order. Only the first {@link #drawCount} entries are used.
+     */
+    private AbstractSkybox[] drawList = new AbstractSkybox[0];
+    private int drawCount;
+    /**
+     * The most visible skybox of this frame, whose decorations are drawn. Null when nothing is drawn.
+     */
+    private AbstractSkybox decorationSkybox;
 
     public void addSkybox(AbstractSkybox skybox) {
         skyboxes.add(Objects.requireNonNull(skybox));
+        this.indexDirty = true;
+        this.evaluatedFrame = -1;
     }
 
     /**
@@ -49,34 +107,164 @@ public class SkyboxManager {
     public void addPermanentSkybox(AbstractSkybox skybox) {
         Preconditions.checkNotNull(skybox, "Skybox was null");
         this.permanentSkyboxes.add(skybox);
+        this.indexDirty = true;
+        this.evaluatedFrame = -1;
     }
 
     public void clearSkyboxes() {
+        skyboxes.forEach(AbstractSkybox::dispose);
         skyboxes.clear();
         activeSkyboxes.clear();
+        drawCount = 0;
+        decorationSkybox = null;
+        this.indexDirty = true;
+        this.evaluatedFrame = -1;
     }
 
-    public float getTotalAlpha() {
-        return (float) StreamSupport.stream(Iterables.concat(this.skyboxes, this.permanentSkyboxes).spliterator(), false).mapToDouble(AbstractSkybox::getAlpha).sum();
+    private void rebuildIndex() {
+        this.installedSkyboxes = Iterables.toArray(Iterables.concat(this.skyboxes, this.permanentSkyboxes), AbstractSkybox.class);
+        // stable, so ties keep the order the skyboxes were added in
+        Arrays.sort(this.installedSkyboxes, DRAW_ORDER);
+        this.index = new SkyboxIndex(this.installedSkyboxes);
+
+        // sized up front so evaluating a frame never grows them
+        int length = this.installedSkyboxes.length;
+        this.candidates = new BitSet(length);
+        this.liveSkyboxes = new BitSet(length);
+        this.activeSkyboxes = new BitSet(length);
+        this.drawList = new AbstractSkybox[length];
+        this.drawCount = 0;
+        this.decorationSkybox = null;
+        for (int i = 0; i < length; i++) {
+            if (this.installedSkyboxes[i].alpha > 0) {
+                this.liveSkyboxes.set(i);
+            }
+        }
+        this.indexDirty = false;
     }
 
-    public void renderSkyboxes(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta) {
-        // Add the skyboxes to a activeSkyboxes container so that they can be ordered
-        this.skyboxes.stream().filter(this.renderPredicate).forEach(this.activeSkyboxes::add);
-        this.permanentSkyboxes.stream().filter(this.renderPredicate).forEach(this.activeSkyboxes::add);
-        // whether we should render the decorations, makes sure we don't get two suns
-        decorationsRendered = false;
-        this.activeSkyboxes.forEach(skybox -> skybox.render(worldRendererAccess, matrices, tickDelta));
-        this.activeSkyboxes.removeIf((skybox) -> skybox.getAlpha() <= MINIMUM_ALPHA);
+    /**
+     * Replaces every non-permanent skybox with the given ones in a single step.
+     * Must be called on the render thread.
+     *
+     * @param skyboxes the new skyboxes, in render order
+     */
+    public void setSkyboxes(Collection<AbstractSkybox> skyboxes) {
+        // skyboxes of unchanged files are reused, so only the ones left out are disposed
+        Set<AbstractSkybox> kept = Sets.newIdentityHashSet();
+        kept.addAll(skyboxes);
+        for (AbstractSkybox skybox : this.skyboxes) {
+            if (!kept.contains(skybox)) {
+                skybox.dispose();
+            }
+        }
+        this.skyboxes.clear();
+        this.activeSkyboxes.clear();
+        this.drawCount = 0;
+        this.decorationSkybox = null;
+        this.indexDirty = true;
+        this.evaluatedFrame = -1;
+        skyboxes.forEach(this::addSkybox);
+    }
+
+    /**
+     * Starts a new frame, called by the game renderer before anything of the frame is drawn.
+     * The skyboxes are evaluated again the next time their state is asked for.
+     */
+    public void beginFrame() {
+        this.frame++;
+    }
+
+    /**
+     * @return A counter that increases by one every rendered frame.
+     */
+    public long getFrame() {
+        return this.frame;
+    }
+
+    /**
+     * Evaluates the skyboxes for the current frame unless that already happened. Rendering
+     * the sky, its total alpha and the fog all use the result of this single evaluation, so
+     * transitions advance once per frame however often the sky is drawn.
+     */
+    public void evaluate() {
+        if (this.evaluatedFrame == this.frame) {
+            return;
+        }
+        this.evaluatedFrame = this.frame;
+        this.environment = SkyEnvironment.capture(Minecraft.getInstance());
+
+        // the skyboxes set these again while being evaluated
+        shouldChangeFog = false;
+        renderSunriseAndSet = true;
+
+        if (this.environment == null) {
+            this.totalAlpha = 0;
+            return;
+        }
+        if (this.indexDirty) {
+            this.rebuildIndex();
+        }
+
+        // Skyboxes that are skipped keep an alpha of zero
+        this.index.collect(this.environment, this.candidates);
+        this.candidates.or(this.liveSkyboxes);
+        double total = 0;
+        for (int i = this.candidates.nextSetBit(0); i >= 0; i = this.candidates.nextSetBit(i + 1)) {
+            float alpha = this.installedSkyboxes[i].getAlpha(this.environment);
+            this.liveSkyboxes.set(i, alpha > 0);
+            this.activeSkyboxes.set(i, alpha >= MINIMUM_ALPHA);
+            total += alpha;
+        }
+        this.totalAlpha = (float) total;
+
+        // the installed skyboxes are sorted, so this keeps the draw order
+        this.drawCount = 0;
+        this.decorationSkybox = null;
+        for (int i = this.activeSkyboxes.nextSetBit(0); i >= 0; i = this.activeSkyboxes.nextSetBit(i + 1)) {
+            AbstractSkybox skybox = this.installedSkyboxes[i];
+            this.drawList[this.drawCount++] = skybox;
+            // ties go to the skybox drawn first
+            if (this.decorationSkybox == null || skybox.alpha > this.decorationSkybox.alpha) {
+                this.decorationSkybox = skybox;
+            }
+        }
+    }
+
+    /**
+     * @return The environment of the current frame, null when there is no world or player.
+     */
+    public SkyEnvironment getEnvironment() {
+        this.evaluate();
+        return this.environment;
     }
 
-    public boolean hasRenderedDecorations() {
-        if (decorationsRendered) {
-            return true;
-        } else {
-            decorationsRendered = true;
-            return false;
+    /**
+     * @return The sum of the alpha of every skybox in the current frame.
+     */
+    public float getTotalAlpha() {
+        this.evaluate();
+        return this.totalAlpha;
+    }
+
+    public void renderSkyboxes(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta) {
+        this.evaluate();
+        if (this.environment == null) {
+            return;
+        }
+        if (this.drawCount == 0) {
+            return;
+        }
+        SkyStateTracker.getInstance().beginPass();
+        for (int i = 0; i < this.drawCount; i++) {
+            this.drawList[i].render(worldRendererAccess, matrices, tickDelta);
+            if (i == 0) {
+                // a single sun and moon on top of the bottom layer, with the most visible skybox deciding their look
+                this.decorationRenderer.render(worldRendererAccess, matrices, tickDelta, this.decorationSkybox.getDecorations(), this.decorationSkybox.alpha);
+            }
+            this.drawList[i].renderAfterDecorations(worldRendererAccess, matrices, tickDelta);
         }
+        SkyStateTracker.getInstance().endPass();
     }
 
     public static SkyboxManager getInstance() {
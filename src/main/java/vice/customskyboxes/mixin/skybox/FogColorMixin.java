@@ -29,12 +29,12 @@ public class FogColorMixin
 
     @Inject(method = "setupColor", at = @At("HEAD"), cancellable = true)
     private static void modifyColors(ActiveRenderInfo camera, float tickDelta, ClientWorld world, int i, float f, CallbackInfo ci) {
+        SkyboxManager.getInstance().evaluate();
         if (SkyboxManager.shouldChangeFog)
         {
             fogRed = SkyboxManager.fogRed;
             fogBlue = SkyboxManager.fogBlue;
             fogGreen = SkyboxManager.fogGreen;
-            SkyboxManager.shouldChangeFog = false;
             ci.cancel();
         }
     }
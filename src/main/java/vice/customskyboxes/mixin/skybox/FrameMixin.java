@@ -0,0 +1,21 @@
+package vice.customskyboxes.mixin.skybox;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import net.minecraft.client.renderer.GameRenderer;
+import vice.customskyboxes.SkyboxManager;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(GameRenderer.class)
+public class FrameMixin {
+    /**
+     * Starts a new skybox frame before the world is rendered, so skyboxes are evaluated
+     * once per frame no matter how often the sky and fog are drawn.
+     */
+    @Inject(method = "renderLevel", at = @At("HEAD"))
+    private void beginSkyboxFrame(float tickDelta, long limitTime, MatrixStack matrices, CallbackInfo ci) {
+        SkyboxManager.getInstance().beginFrame();
+    }
+}
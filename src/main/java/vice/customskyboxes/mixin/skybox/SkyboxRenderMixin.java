@@ -15,7 +15,6 @@ public class SkyboxRenderMixin {
      */
     @Inject(method = "renderSky", at = @At("HEAD"), cancellable = true)
     private void renderCustomSkyboxes(MatrixStack matrices, float tickDelta, CallbackInfo ci) {
-
         float total = SkyboxManager.getInstance().getTotalAlpha();
         SkyboxManager.getInstance().renderSkyboxes((WorldRendererAccess) this, matrices, tickDelta);
         if (total > SkyboxManager.MINIMUM_ALPHA) {
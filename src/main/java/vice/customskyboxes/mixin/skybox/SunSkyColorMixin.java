@@ -19,13 +19,11 @@ public class SunSkyColorMixin
    )
    private static int renderSkyColor(int original)
    {
+       SkyboxManager.getInstance().evaluate();
        if (SkyboxManager.renderSunriseAndSet)
            return original;
        else
-       {
-           SkyboxManager.renderSunriseAndSet = true;
            return Integer.MAX_VALUE;
-       }
    }
 }
 
@@ -0,0 +1,65 @@
+package vice.customskyboxes.render;
+
+/**
+ * Works out which frame of an animation to show, directly from a time source rather than by
+ * stepping one frame per render. Frames that fall between two renders are skipped, so the
+ * animation keeps its speed at any frame rate.
+ * <p>
+ * By default the clock follows real time, but only while the skybox is drawn and visible.
+ * When synced to the day time, the frame follows the world time instead, so every player sees
+ * the same frame at the same time of day.
+ */
+public class AnimationClock {
+    private static final long NANOS_PER_TICK = 50_000_000L;
+
+    private final long frameNanos;
+    private final boolean syncToDayTime;
+
+    private long elapsedNanos;
+    private long lastNanos;
+    private long lastRenderFrame = Long.MIN_VALUE;
+
+    /**
+     * @param fps           The frames per second of the animation. Values outside of (0, 360] fall back to 16ms per frame.
+     * @param syncToDayTime Whether the frame follows the day time instead of real time.
+     */
+    public AnimationClock(float fps, boolean syncToDayTime) {
+        if (fps > 0 && fps <= 360) {
+            this.frameNanos = (long) (1_000_000_000D / fps);
+        } else {
+            this.frameNanos = 16_000_000L;
+        }
+        this.syncToDayTime = syncToDayTime;
+    }
+
+    /**
+     * Gets the frame to show. May be called several times per render frame, time only
+     * advances once per render frame.
+     *
+     * @param frameCount  The number of frames of the animation.
+     * @param nanoTime    The current value of a monotonic clock, like {@link System#nanoTime()}.
+     * @param renderFrame A counter that increases by one every render frame.
+     * @param alpha       The alpha of the skybox, time doesn't advance while it is zero.
+     * @param dayTime     The day time of the world.
+     * @param tickDelta   The progress towards the next tick.
+     * @return The index of the frame, from 0 to frameCount - 1.
+     */
+    public int getFrame(int frameCount, long nanoTime, long renderFrame, float alpha, long dayTime, float tickDelta) {
+        long elapsed;
+        if (this.syncToDayTime) {
+            elapsed = dayTime * NANOS_PER_TICK + (long) (tickDelta * NANOS_PER_TICK);
+        } else {
+            // renders that were skipped because the skybox was not drawn don't count
+            if (renderFrame == this.lastRenderFrame + 1 && alpha > 0) {
+                this.elapsedNanos += nanoTime - this.lastNanos;
+            }
+            if (renderFrame != this.lastRenderFrame) {
+                this.lastNanos = nanoTime;
+                this.lastRenderFrame = renderFrame;
+            }
+            elapsed = this.elapsedNanos;
+        }
+        // rounded down, as the day time may be negative
+        return (int) Math.floorMod(Math.floorDiv(elapsed, this.frameNanos), (long) frameCount);
+    }
+}
@@ -0,0 +1,286 @@
+package vice.customskyboxes.render;
+
+import com.google.common.hash.HashCode;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.resources.IResource;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.Util;
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.Nullable;
+import vice.customskyboxes.FabricSkyBoxesClient;
+import vice.customskyboxes.resource.SkyboxCache;
+import vice.customskyboxes.util.object.Texture;
+import vice.customskyboxes.util.object.Textures;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the textures of an animated skybox loaded within a memory budget.
+ * <p>
+ * The textures of the frames following the current one are read and decoded on a background
+ * thread, and uploaded on the render thread once done. Textures with identical contents are
+ * uploaded once and shared. When the uploaded textures exceed the budget, the least recently
+ * shown ones outside the look-ahead window are released again.
+ */
+public class AnimationFrameCache {
+    /**
+     * The number of frames after the current one that are loaded ahead of time.
+     */
+    private static final int LOOK_AHEAD = 8;
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final List<Textures> frames;
+    private final long budgetBytes;
+    /**
+     * The frames with their textures replaced by the uploaded ones, null while not all of them are uploaded.
+     */
+    private final Textures[] resolvedFrames;
+    /**
+     * The textures that are being loaded or were uploaded, by their id in the skybox file.
+     */
+    private final Map<ResourceLocation, Entry> entries = new HashMap<>();
+    private final Map<HashCode, Upload> uploads = new HashMap<>();
+    private final List<Entry> pending = new ArrayList<>();
+    private final Set<ResourceLocation> window = new HashSet<>();
+    private long uploadedBytes;
+    private long useCounter;
+    @Nullable
+    private Textures lastShown;
+
+    public AnimationFrameCache(List<Textures> frames, long budgetBytes) {
+        this.frames = frames;
+        this.budgetBytes = budgetBytes;
+        this.resolvedFrames = new Textures[frames.size()];
+    }
+
+    /**
+     * Gets the textures to show for a frame and loads the following frames. Must be called on the render thread.
+     *
+     * @param frame The index of the frame to show.
+     * @return The textures of the frame, or of the last frame shown if it isn't loaded yet.
+     * Null if no frame was loaded yet.
+     */
+    @Nullable
+    public Textures get(IResourceManager resourceManager, TextureManager textureManager, int frame) {
+        this.uploadFinished(textureManager);
+
+        this.window.clear();
+        for (int i = 0; i <= LOOK_AHEAD && i < this.frames.size(); i++) {
+            Textures textures = this.frames.get((frame + i) % this.frames.size());
+            for (int face = 0; face < 6; face++) {
+                ResourceLocation id = textures.byId(face).getTextureId();
+                this.window.add(id);
+                // the current frame is always loaded, the ones after it only while within budget
+                if (!this.entries.containsKey(id) && (i == 0 || this.uploadedBytes < this.budgetBytes)) {
+                    this.load(resourceManager, id);
+                }
+            }
+        }
+
+        Textures resolved = this.resolve(frame);
+        if (resolved != null) {
+            this.lastShown = resolved;
+        }
+        this.evict(textureManager);
+        return this.lastShown;
+    }
+
+    private void load(IResourceManager resourceManager, ResourceLocation id) {
+        Entry entry = new Entry(CompletableFuture.supplyAsync(() -> {
+            try (IResource resource = resourceManager.getResource(id); InputStream stream = resource.getInputStream()) {
+                byte[] content = IOUtils.toByteArray(stream);
+                return new Decoded(SkyboxCache.hashContent(content), NativeImage.read(new ByteArrayInputStream(content)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, Util.backgroundExecutor()));
+        this.entries.put(id, entry);
+        this.pending.add(entry);
+    }
+
+    /**
+     * Uploads the textures that finished decoding, sharing uploads between textures with the same contents.
+     */
+    private void uploadFinished(TextureManager textureManager) {
+        Iterator<Entry> iterator = this.pending.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!entry.future.isDone()) {
+                continue;
+            }
+            iterator.remove();
+            Decoded decoded;
+            try {
+                decoded = entry.future.join();
+            } catch (RuntimeException e) {
+                FabricSkyBoxesClient.getLogger().warn("Could not load an animation frame texture", e);
+                entry.failed = true;
+                continue;
+            }
+
+            Upload upload = this.uploads.get(decoded.hash);
+            if (upload == null) {
+                ResourceLocation id = new ResourceLocation(FabricSkyBoxesClient.MODID, "animation_frame/" + NEXT_ID.getAndIncrement());
+                long bytes = (long) decoded.image.getWidth() * decoded.image.getHeight() * 4;
+                textureManager.register(id, new DynamicTexture(decoded.image));
+                upload = new Upload(decoded.hash, id, bytes);
+                this.uploads.put(decoded.hash, upload);
+                this.uploadedBytes += bytes;
+            } else {
+                decoded.image.close();
+            }
+            entry.upload = upload;
+        }
+    }
+
+    @Nullable
+    private Textures resolve(int frame) {
+        Textures resolved = this.resolvedFrames[frame];
+        if (resolved == null) {
+            Textures textures = this.frames.get(frame);
+            Texture[] faces = new Texture[6];
+            for (int face = 0; face < 6; face++) {
+                Texture texture = textures.byId(face);
+                Entry entry = this.entries.get(texture.getTextureId());
+                if (entry == null || (entry.upload == null && !entry.failed)) {
+                    return null;
+                }
+                // textures that failed to load are left to the texture manager
+                ResourceLocation id = entry.failed ? texture.getTextureId() : entry.upload.id;
+                faces[face] = new Texture(id, texture.getMinU(), texture.getMinV(), texture.getMaxU(), texture.getMaxV());
+            }
+            // byId order is bottom, north, south, top, east, west
+            resolved = new Textures(faces[1], faces[2], faces[4], faces[5], faces[3], faces[0]);
+            this.resolvedFrames[frame] = resolved;
+        }
+
+        long use = ++this.useCounter;
+        for (int face = 0; face < 6; face++) {
+            Entry entry = this.entries.get(this.frames.get(frame).byId(face).getTextureId());
+            if (entry.upload != null) {
+                entry.upload.lastUsed = use;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Releases the least recently shown uploads outside the look-ahead window until the budget is met.
+     */
+    private void evict(TextureManager textureManager) {
+        while (this.uploadedBytes > this.budgetBytes) {
+            Upload oldest = null;
+            for (Upload upload : this.uploads.values()) {
+                if ((oldest == null || upload.lastUsed < oldest.lastUsed) && !this.isInWindow(upload)) {
+                    oldest = upload;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            this.release(textureManager, oldest);
+        }
+    }
+
+    private boolean isInWindow(Upload upload) {
+        for (ResourceLocation id : this.window) {
+            Entry entry = this.entries.get(id);
+            if (entry != null && entry.upload == upload) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void release(TextureManager textureManager, Upload upload) {
+        textureManager.release(upload.id);
+        this.uploads.remove(upload.hash);
+        this.uploadedBytes -= upload.bytes;
+        this.entries.values().removeIf(entry -> entry.upload == upload);
+        for (int i = 0; i < this.resolvedFrames.length; i++) {
+            Textures resolved = this.resolvedFrames[i];
+            if (resolved != null && usesUpload(resolved, upload)) {
+                this.resolvedFrames[i] = null;
+            }
+        }
+        if (this.lastShown != null && usesUpload(this.lastShown, upload)) {
+            this.lastShown = null;
+        }
+    }
+
+    private static boolean usesUpload(Textures textures, Upload upload) {
+        for (int face = 0; face < 6; face++) {
+            if (textures.byId(face).getTextureId().equals(upload.id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases every uploaded texture. Textures still being decoded are freed once done.
+     * Must be called on the render thread.
+     */
+    public void close(TextureManager textureManager) {
+        for (Entry entry : this.pending) {
+            entry.future.thenAccept(decoded -> decoded.image.close());
+        }
+        this.pending.clear();
+        for (Upload upload : this.uploads.values()) {
+            textureManager.release(upload.id);
+        }
+        this.uploads.clear();
+        this.entries.clear();
+        this.uploadedBytes = 0;
+        this.lastShown = null;
+    }
+
+    private static class Entry {
+        private final CompletableFuture<Decoded> future;
+        @Nullable
+        private Upload upload;
+        private boolean failed;
+
+        private Entry(CompletableFuture<Decoded> future) {
+            this.future = future;
+        }
+    }
+
+    private static class Decoded {
+        private final HashCode hash;
+        private final NativeImage image;
+
+        private Decoded(HashCode hash, NativeImage image) {
+            this.hash = hash;
+            this.image = image;
+        }
+    }
+
+    private static class Upload {
+        private final HashCode hash;
+        private final ResourceLocation id;
+        private final long bytes;
+        private long lastUsed;
+
+        private Upload(HashCode hash, ResourceLocation id, long bytes) {
+            this.hash = hash;
+            this.id = id;
+            this.bytes = bytes;
+        }
+    }
+}
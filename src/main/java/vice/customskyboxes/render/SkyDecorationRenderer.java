@@ -0,0 +1,133 @@
+package vice.customskyboxes.render;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.vector.Matrix4f;
+import net.minecraft.util.math.vector.Quaternion;
+import net.minecraft.util.math.vector.Vector3f;
+import vice.customskyboxes.mixin.skybox.WorldRendererAccess;
+import vice.customskyboxes.util.object.Decorations;
+import vice.customskyboxes.util.object.Rotation;
+
+import java.util.Objects;
+
+/**
+ * Draws the sun, moon and stars once per frame for the whole sky. The sun quad and the quads
+ * of every moon phase are uploaded once, so drawing them only binds a texture and issues a
+ * draw call.
+ */
+public class SkyDecorationRenderer {
+    private static final int VERTICES_PER_QUAD = 4;
+    private static final int MOON_PHASES = 8;
+    private static final float SUN_SIZE = 30.0F;
+    private static final float MOON_SIZE = 20.0F;
+    private static final Quaternion SUN_YAW = Vector3f.YP.rotationDegrees(-90.0F);
+
+    private VertexBuffer sunBuffer;
+    private VertexBuffer moonBuffer;
+
+    /**
+     * Draws the decorations. Must be called on the render thread.
+     *
+     * @param decorations The decorations to draw.
+     * @param alpha       The alpha to draw the sun and moon with.
+     */
+    public void render(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta, Decorations decorations, float alpha) {
+        if (this.sunBuffer == null) {
+            this.upload();
+        }
+        ClientWorld world = Objects.requireNonNull(Minecraft.getInstance().level);
+        SkyStateTracker state = SkyStateTracker.getInstance();
+        Rotation rotation = decorations.getRotation();
+
+        state.disableAlphaTest();
+        state.depthMask(false);
+        state.enableBlend();
+        state.enableTexture();
+        state.blendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE, GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ZERO);
+
+        matrices.pushPose();
+        matrices.mulPose(rotation.getStaticQuaternion());
+        matrices.mulPose(rotation.getAxisQuaternion());
+        matrices.mulPose(SUN_YAW);
+        matrices.mulPose(Vector3f.XP.rotationDegrees(world.getTimeOfDay(tickDelta) * 360.0F * rotation.getRotationSpeed()));
+        matrices.mulPose(rotation.getAxisInverseQuaternion());
+        Matrix4f matrix = matrices.last().pose();
+
+        RenderSystem.color4f(1.0F, 1.0F, 1.0F, alpha);
+        if (decorations.isSunEnabled()) {
+            worldRendererAccess.getTextureManager().bind(decorations.getSunTexture());
+            drawQuad(this.sunBuffer, matrix, 0);
+        }
+        if (decorations.isMoonEnabled()) {
+            worldRendererAccess.getTextureManager().bind(decorations.getMoonTexture());
+            drawQuad(this.moonBuffer, matrix, world.getMoonPhase() % MOON_PHASES);
+        }
+        if (decorations.isStarsEnabled()) {
+            float brightness = world.getStarBrightness(tickDelta) * (1.0F - world.getRainLevel(tickDelta));
+            if (brightness > 0.0F) {
+                state.disableTexture();
+                RenderSystem.color4f(brightness, brightness, brightness, brightness);
+                worldRendererAccess.getStarBuffer().bind();
+                worldRendererAccess.getSkyFormat().setupBufferState(0L);
+                worldRendererAccess.getStarBuffer().draw(matrix, 7);
+                VertexBuffer.unbind();
+                worldRendererAccess.getSkyFormat().clearBufferState();
+            }
+        }
+        RenderSystem.color4f(1.0F, 1.0F, 1.0F, 1.0F);
+        state.disableBlend();
+        state.enableAlphaTest();
+        state.enableFog();
+        matrices.popPose();
+    }
+
+    private static void drawQuad(VertexBuffer buffer, Matrix4f matrix, int quad) {
+        buffer.bind();
+        DefaultVertexFormats.POSITION_TEX.setupBufferState(0L);
+        RenderSystem.pushMatrix();
+        RenderSystem.multMatrix(matrix);
+        RenderSystem.drawArrays(7, quad * VERTICES_PER_QUAD, VERTICES_PER_QUAD);
+        RenderSystem.popMatrix();
+        VertexBuffer.unbind();
+        DefaultVertexFormats.POSITION_TEX.clearBufferState();
+    }
+
+    private void upload() {
+        BufferBuilder bufferBuilder = Tessellator.getInstance().getBuilder();
+
+        bufferBuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
+        bufferBuilder.vertex(-SUN_SIZE, 100.0F, -SUN_SIZE).uv(0.0F, 0.0F).endVertex();
+        bufferBuilder.vertex(SUN_SIZE, 100.0F, -SUN_SIZE).uv(1.0F, 0.0F).endVertex();
+        bufferBuilder.vertex(SUN_SIZE, 100.0F, SUN_SIZE).uv(1.0F, 1.0F).endVertex();
+        bufferBuilder.vertex(-SUN_SIZE, 100.0F, SUN_SIZE).uv(0.0F, 1.0F).endVertex();
+        bufferBuilder.end();
+        this.sunBuffer = new VertexBuffer(DefaultVertexFormats.POSITION_TEX);
+        this.sunBuffer.upload(bufferBuilder);
+
+        // the moon texture is 4 wide and 2 high, one phase per cell
+        bufferBuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
+        for (int phase = 0; phase < MOON_PHASES; phase++) {
+            int u = phase % 4;
+            int v = phase / 4 % 2;
+            float minU = (float) u / 4.0F;
+            float minV = (float) v / 2.0F;
+            float maxU = (float) (u + 1) / 4.0F;
+            float maxV = (float) (v + 1) / 2.0F;
+            bufferBuilder.vertex(-MOON_SIZE, -100.0F, MOON_SIZE).uv(maxU, maxV).endVertex();
+            bufferBuilder.vertex(MOON_SIZE, -100.0F, MOON_SIZE).uv(minU, maxV).endVertex();
+            bufferBuilder.vertex(MOON_SIZE, -100.0F, -MOON_SIZE).uv(minU, minV).endVertex();
+            bufferBuilder.vertex(-MOON_SIZE, -100.0F, -MOON_SIZE).uv(maxU, minV).endVertex();
+        }
+        bufferBuilder.end();
+        this.moonBuffer = new VertexBuffer(DefaultVertexFormats.POSITION_TEX);
+        this.moonBuffer.upload(bufferBuilder);
+    }
+}
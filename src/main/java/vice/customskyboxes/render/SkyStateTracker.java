@@ -0,0 +1,216 @@
+package vice.customskyboxes.render;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL14;
+
+/**
+ * Remembers the GL state set while the skyboxes are drawn, so a layer setting the same state
+ * as the one before it issues no calls. The state is unknown at the start of every sky pass
+ * and set back to what vanilla leaves behind after drawing the sky at its end.
+ * <p>
+ * Only state changed through this tracker is known to it, so everything drawing skyboxes
+ * should go through it for the tracked state.
+ * <p>
+ * The cube map target and texture coordinate generation that {@link SkyboxCubemap} draws
+ * with are not tracked. It enables them and disables them again around each draw, so they
+ * are never left set for the next layer.
+ */
+public class SkyStateTracker {
+    private static final SkyStateTracker INSTANCE = new SkyStateTracker();
+
+    private static final int UNKNOWN = -1;
+
+    private int alphaTest = UNKNOWN;
+    private int blend = UNKNOWN;
+    private int texture = UNKNOWN;
+    private int fog = UNKNOWN;
+    private int depthMask = UNKNOWN;
+    private int shadeModel = UNKNOWN;
+    private int blendEquation = UNKNOWN;
+    private int srcColor = UNKNOWN;
+    private int dstColor = UNKNOWN;
+    private int srcAlpha = UNKNOWN;
+    private int dstAlpha = UNKNOWN;
+
+    private long issuedCalls;
+    private long skippedCalls;
+
+    public static SkyStateTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Forgets the known state, as anything may have changed it since the last sky pass.
+     */
+    public void beginPass() {
+        this.alphaTest = UNKNOWN;
+        this.blend = UNKNOWN;
+        this.texture = UNKNOWN;
+        this.fog = UNKNOWN;
+        this.depthMask = UNKNOWN;
+        this.shadeModel = UNKNOWN;
+        this.blendEquation = UNKNOWN;
+        this.srcColor = UNKNOWN;
+        this.dstColor = UNKNOWN;
+        this.srcAlpha = UNKNOWN;
+        this.dstAlpha = UNKNOWN;
+    }
+
+    /**
+     * Sets the state vanilla leaves behind after drawing the sky.
+     */
+    public void endPass() {
+        this.enableTexture();
+        this.depthMask(true);
+        this.disableFog();
+        this.disableBlend();
+        this.enableAlphaTest();
+        this.shadeModel(GL11.GL_FLAT);
+        this.defaultBlendFunc();
+        this.blendEquation(GL14.GL_FUNC_ADD);
+        RenderSystem.color4f(1.0F, 1.0F, 1.0F, 1.0F);
+    }
+
+    private boolean changes(int current, int value) {
+        return this.count(current != value);
+    }
+
+    /**
+     * Counts a state change as issued or skipped.
+     *
+     * @return Whether the state changes and the call has to be passed on to GL.
+     */
+    private boolean count(boolean changes) {
+        if (changes) {
+            this.issuedCalls++;
+        } else {
+            this.skippedCalls++;
+        }
+        return changes;
+    }
+
+    private static int bit(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    public void enableAlphaTest() {
+        if (this.changes(this.alphaTest, 1)) {
+            RenderSystem.enableAlphaTest();
+            this.alphaTest = 1;
+        }
+    }
+
+    public void disableAlphaTest() {
+        if (this.changes(this.alphaTest, 0)) {
+            RenderSystem.disableAlphaTest();
+            this.alphaTest = 0;
+        }
+    }
+
+    public void enableBlend() {
+        if (this.changes(this.blend, 1)) {
+            RenderSystem.enableBlend();
+            this.blend = 1;
+        }
+    }
+
+    public void disableBlend() {
+        if (this.changes(this.blend, 0)) {
+            RenderSystem.disableBlend();
+            this.blend = 0;
+        }
+    }
+
+    public void enableTexture() {
+        if (this.changes(this.texture, 1)) {
+            RenderSystem.enableTexture();
+            this.texture = 1;
+        }
+    }
+
+    public void disableTexture() {
+        if (this.changes(this.texture, 0)) {
+            RenderSystem.disableTexture();
+            this.texture = 0;
+        }
+    }
+
+    public void enableFog() {
+        if (this.changes(this.fog, 1)) {
+            RenderSystem.enableFog();
+            this.fog = 1;
+        }
+    }
+
+    public void disableFog() {
+        if (this.changes(this.fog, 0)) {
+            RenderSystem.disableFog();
+            this.fog = 0;
+        }
+    }
+
+    public void depthMask(boolean mask) {
+        if (this.changes(this.depthMask, bit(mask))) {
+            RenderSystem.depthMask(mask);
+            this.depthMask = bit(mask);
+        }
+    }
+
+    public void shadeModel(int mode) {
+        if (this.changes(this.shadeModel, mode)) {
+            RenderSystem.shadeModel(mode);
+            this.shadeModel = mode;
+        }
+    }
+
+    public void blendEquation(int mode) {
+        if (this.changes(this.blendEquation, mode)) {
+            RenderSystem.blendEquation(mode);
+            this.blendEquation = mode;
+        }
+    }
+
+    public void blendFunc(GlStateManager.SourceFactor src, GlStateManager.DestFactor dst) {
+        this.blendFunc(src.value, dst.value);
+    }
+
+    public void blendFunc(int src, int dst) {
+        // blendFunc sets the alpha factors as well
+        this.blendFuncSeparate(src, dst, src, dst);
+    }
+
+    public void blendFuncSeparate(GlStateManager.SourceFactor srcColor, GlStateManager.DestFactor dstColor, GlStateManager.SourceFactor srcAlpha, GlStateManager.DestFactor dstAlpha) {
+        this.blendFuncSeparate(srcColor.value, dstColor.value, srcAlpha.value, dstAlpha.value);
+    }
+
+    public void blendFuncSeparate(int srcColor, int dstColor, int srcAlpha, int dstAlpha) {
+        boolean changes = this.srcColor != srcColor || this.dstColor != dstColor || this.srcAlpha != srcAlpha || this.dstAlpha != dstAlpha;
+        if (this.count(changes)) {
+            RenderSystem.blendFuncSeparate(srcColor, dstColor, srcAlpha, dstAlpha);
+            this.srcColor = srcColor;
+            this.dstColor = dstColor;
+            this.srcAlpha = srcAlpha;
+            this.dstAlpha = dstAlpha;
+        }
+    }
+
+    public void defaultBlendFunc() {
+        this.blendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA, GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ZERO);
+    }
+
+    /**
+     * @return The number of state changes that were passed on to GL.
+     */
+    public long getIssuedCalls() {
+        return this.issuedCalls;
+    }
+
+    /**
+     * @return The number of state changes that were skipped as the state was already set.
+     */
+    public long getSkippedCalls() {
+        return this.skippedCalls;
+    }
+}
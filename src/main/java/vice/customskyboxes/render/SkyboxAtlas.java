@@ -0,0 +1,126 @@
+package vice.customskyboxes.render;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.resources.IResource;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import vice.customskyboxes.FabricSkyBoxesClient;
+import vice.customskyboxes.util.object.Texture;
+import vice.customskyboxes.util.object.Textures;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Packs the six face textures of a skybox into a single texture, three faces wide and two
+ * faces high, so the whole cube can be drawn with one bind. Face {@code i} (in the order of
+ * {@link Textures#byId(int)}) goes to column {@code i % 3} and row {@code i / 3}.
+ */
+public class SkyboxAtlas implements AutoCloseable {
+    private static final int COLUMNS = 3;
+    private static final int ROWS = 2;
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final TextureManager textureManager;
+    private final ResourceLocation id;
+    private final Textures textures;
+
+    private SkyboxAtlas(TextureManager textureManager, ResourceLocation id, Textures textures) {
+        this.textureManager = textureManager;
+        this.id = id;
+        this.textures = textures;
+    }
+
+    /**
+     * Builds and registers the atlas for the given face textures. Must be called on the render thread.
+     *
+     * @return The atlas, or null if the face textures could not be read, differ in size or
+     * would not fit into a single texture.
+     */
+    public static SkyboxAtlas create(IResourceManager resourceManager, TextureManager textureManager, Textures faces) {
+        NativeImage[] images = new NativeImage[6];
+        try {
+            for (int i = 0; i < images.length; i++) {
+                try (IResource resource = resourceManager.getResource(faces.byId(i).getTextureId())) {
+                    images[i] = NativeImage.read(resource.getInputStream());
+                }
+            }
+
+            int width = images[0].getWidth();
+            int height = images[0].getHeight();
+            for (NativeImage image : images) {
+                if (image.getWidth() != width || image.getHeight() != height) {
+                    FabricSkyBoxesClient.getLogger().warn("Skybox face textures differ in size, not packing " + faces.getNorth().getTextureId() + " into an atlas");
+                    return null;
+                }
+            }
+
+            int maxSize = RenderSystem.maxSupportedTextureSize();
+            if (width * COLUMNS > maxSize || height * ROWS > maxSize) {
+                FabricSkyBoxesClient.getLogger().warn("An atlas of the faces of " + faces.getNorth().getTextureId() + " would exceed the maximum texture size of " + maxSize + ", drawing the faces separately");
+                return null;
+            }
+
+            NativeImage atlas = new NativeImage(width * COLUMNS, height * ROWS, true);
+            for (int i = 0; i < images.length; i++) {
+                int offsetX = (i % COLUMNS) * width;
+                int offsetY = (i / COLUMNS) * height;
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        atlas.setPixelRGBA(offsetX + x, offsetY + y, images[i].getPixelRGBA(x, y));
+                    }
+                }
+            }
+
+            ResourceLocation id = new ResourceLocation(FabricSkyBoxesClient.MODID, "skybox_atlas/" + NEXT_ID.getAndIncrement());
+            textureManager.register(id, new DynamicTexture(atlas));
+            return new SkyboxAtlas(textureManager, id, remap(id, faces));
+        } catch (IOException | RuntimeException e) {
+            FabricSkyBoxesClient.getLogger().warn("Could not pack the faces of " + faces.getNorth().getTextureId() + " into an atlas", e);
+            return null;
+        } finally {
+            for (NativeImage image : images) {
+                if (image != null) {
+                    image.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the coordinates of every face into its cell of an atlas.
+     *
+     * @param atlasId The texture the remapped faces refer to.
+     * @param faces   The faces with their coordinates within their own texture.
+     */
+    public static Textures remap(ResourceLocation atlasId, Textures faces) {
+        Texture[] remapped = new Texture[6];
+        for (int i = 0; i < remapped.length; i++) {
+            Texture face = faces.byId(i);
+            int column = i % COLUMNS;
+            int row = i / COLUMNS;
+            remapped[i] = new Texture(atlasId,
+                    (column + face.getMinU()) / COLUMNS,
+                    (row + face.getMinV()) / ROWS,
+                    (column + face.getMaxU()) / COLUMNS,
+                    (row + face.getMaxV()) / ROWS);
+        }
+        // byId order is bottom, north, south, top, east, west
+        return new Textures(remapped[1], remapped[2], remapped[4], remapped[5], remapped[3], remapped[0]);
+    }
+
+    /**
+     * @return The faces of the skybox, all referring to the atlas.
+     */
+    public Textures getTextures() {
+        return this.textures;
+    }
+
+    @Override
+    public void close() {
+        this.textureManager.release(this.id);
+    }
+}
@@ -0,0 +1,146 @@
+package vice.customskyboxes.render;
+
+import com.google.common.primitives.Floats;
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.vector.Matrix4f;
+import net.minecraft.util.math.vector.Vector3f;
+import vice.customskyboxes.util.object.Texture;
+import vice.customskyboxes.util.object.Textures;
+
+import java.util.List;
+
+/**
+ * The six faces of a square textured skybox, uploaded once into a {@link VertexBuffer}
+ * with the face rotations already applied. Only positions and texture coordinates are
+ * stored, the alpha of the skybox is taken from the current color when drawing.
+ */
+public class SkyboxCubeMesh implements AutoCloseable {
+    private static final int FACES = 6;
+    private static final int VERTICES_PER_FACE = 4;
+
+    private final VertexBuffer buffer = new VertexBuffer(DefaultVertexFormats.POSITION_TEX);
+
+    /**
+     * Builds the mesh for the texture coordinates of the given textures. Must be called on the render thread.
+     *
+     * @param uvs The texture coordinates as returned by {@link #uvKey(Textures)}.
+     */
+    public SkyboxCubeMesh(List<Float> uvs) {
+        BufferBuilder bufferBuilder = Tessellator.getInstance().getBuilder();
+        bufferBuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
+        for (int i = 0; i < FACES; ++i) {
+            MatrixStack matrices = new MatrixStack();
+            applyFaceRotation(matrices, i);
+            Matrix4f matrix4f = matrices.last().pose();
+            float minU = uvs.get(i * 4);
+            float minV = uvs.get(i * 4 + 1);
+            float maxU = uvs.get(i * 4 + 2);
+            float maxV = uvs.get(i * 4 + 3);
+            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, -100.0F).uv(minU, minV).endVertex();
+            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, 100.0F).uv(minU, maxV).endVertex();
+            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, 100.0F).uv(maxU, maxV).endVertex();
+            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, -100.0F).uv(maxU, minV).endVertex();
+        }
+        bufferBuilder.end();
+        this.buffer.upload(bufferBuilder);
+    }
+
+    /**
+     * Gets the texture coordinates of every face, in face order. Textures with equal
+     * coordinates can share a mesh.
+     */
+    public static List<Float> uvKey(Textures textures) {
+        float[] uvs = new float[FACES * 4];
+        for (int i = 0; i < FACES; ++i) {
+            Texture tex = textures.byId(i);
+            uvs[i * 4] = tex.getMinU();
+            uvs[i * 4 + 1] = tex.getMinV();
+            uvs[i * 4 + 2] = tex.getMaxU();
+            uvs[i * 4 + 3] = tex.getMaxV();
+        }
+        return Floats.asList(uvs);
+    }
+
+    static void applyFaceRotation(MatrixStack matrices, int face) {
+        // 0 = bottom
+        // 1 = north
+        // 2 = south
+        // 3 = top
+        // 4 = east
+        // 5 = west
+        if (face == 1) {
+            matrices.mulPose(Vector3f.XP.rotationDegrees(90.0F));
+        } else if (face == 2) {
+            matrices.mulPose(Vector3f.XP.rotationDegrees(-90.0F));
+            matrices.mulPose(Vector3f.YP.rotationDegrees(180.0F));
+        } else if (face == 3) {
+            matrices.mulPose(Vector3f.XP.rotationDegrees(180.0F));
+            matrices.mulPose(Vector3f.YP.rotationDegrees(90.0F));
+        } else if (face == 4) {
+            matrices.mulPose(Vector3f.ZP.rotationDegrees(90.0F));
+            matrices.mulPose(Vector3f.YP.rotationDegrees(-90.0F));
+        } else if (face == 5) {
+            matrices.mulPose(Vector3f.ZP.rotationDegrees(-90.0F));
+            matrices.mulPose(Vector3f.YP.rotationDegrees(90.0F));
+        }
+    }
+
+    /**
+     * Draws the cube with the textures of the given set. Consecutive faces using the same
+     * texture are drawn in a single call.
+     *
+     * @param matrix         The transformation of the skybox.
+     * @param textureManager The texture manager to bind the textures with.
+     * @param textures       The textures to draw with, with the coordinates this mesh was built for.
+     */
+    public void draw(Matrix4f matrix, TextureManager textureManager, Textures textures) {
+        this.buffer.bind();
+        DefaultVertexFormats.POSITION_TEX.setupBufferState(0L);
+        RenderSystem.pushMatrix();
+        RenderSystem.multMatrix(matrix);
+
+        int first = 0;
+        ResourceLocation textureId = textures.byId(0).getTextureId();
+        for (int i = 1; i <= FACES; ++i) {
+            ResourceLocation next = i < FACES ? textures.byId(i).getTextureId() : null;
+            if (!textureId.equals(next)) {
+                textureManager.bind(textureId);
+                RenderSystem.drawArrays(7, first * VERTICES_PER_FACE, (i - first) * VERTICES_PER_FACE);
+                first = i;
+                textureId = next;
+            }
+        }
+
+        RenderSystem.popMatrix();
+        VertexBuffer.unbind();
+        DefaultVertexFormats.POSITION_TEX.clearBufferState();
+    }
+
+    /**
+     * Draws the cube with whatever texture state is currently set up.
+     *
+     * @param matrix The transformation of the skybox.
+     */
+    public void drawGeometry(Matrix4f matrix) {
+        this.buffer.bind();
+        DefaultVertexFormats.POSITION_TEX.setupBufferState(0L);
+        RenderSystem.pushMatrix();
+        RenderSystem.multMatrix(matrix);
+        RenderSystem.drawArrays(7, 0, FACES * VERTICES_PER_FACE);
+        RenderSystem.popMatrix();
+        VertexBuffer.unbind();
+        DefaultVertexFormats.POSITION_TEX.clearBufferState();
+    }
+
+    @Override
+    public void close() {
+        this.buffer.close();
+    }
+}
@@ -0,0 +1,224 @@
+package vice.customskyboxes.render;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.resources.IResource;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Matrix3f;
+import net.minecraft.util.math.vector.Matrix4f;
+import net.minecraft.util.math.vector.Vector3f;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.system.MemoryUtil;
+import vice.customskyboxes.FabricSkyBoxesClient;
+import vice.customskyboxes.util.object.Texture;
+import vice.customskyboxes.util.object.Textures;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The six faces of a skybox resampled into a {@code GL_TEXTURE_CUBE_MAP}. Each texel of the
+ * cube map takes the color the face geometry of {@link SkyboxCubeMesh} shows in its
+ * direction, so the result looks like the six quads without the seams between them.
+ * <p>
+ * The cube is drawn with texture coordinates generated from the object space position of
+ * each vertex, which is the direction from the center of the skybox.
+ */
+public class SkyboxCubemap implements AutoCloseable {
+    private static final int MAX_SIZE = 2048;
+    private static final float[] PLANE_S = {1.0F, 0.0F, 0.0F, 0.0F};
+    private static final float[] PLANE_T = {0.0F, 1.0F, 0.0F, 0.0F};
+    private static final float[] PLANE_R = {0.0F, 0.0F, 1.0F, 0.0F};
+
+    private final int textureId;
+
+    private SkyboxCubemap(int textureId) {
+        this.textureId = textureId;
+    }
+
+    /**
+     * Builds the cube map for the given faces. Must be called on the render thread.
+     *
+     * @return The cube map, or null if the face textures could not be read.
+     */
+    public static SkyboxCubemap create(IResourceManager resourceManager, Textures faces) {
+        RenderSystem.assertThread(RenderSystem::isOnRenderThread);
+        Map<ResourceLocation, NativeImage> images = new HashMap<>();
+        try {
+            int size = 1;
+            for (int i = 0; i < 6; i++) {
+                Texture face = faces.byId(i);
+                NativeImage image = images.get(face.getTextureId());
+                if (image == null) {
+                    try (IResource resource = resourceManager.getResource(face.getTextureId())) {
+                        image = NativeImage.read(resource.getInputStream());
+                    }
+                    images.put(face.getTextureId(), image);
+                }
+                size = Math.max(size, Math.round(Math.abs(face.getMaxU() - face.getMinU()) * image.getWidth()));
+                size = Math.max(size, Math.round(Math.abs(face.getMaxV() - face.getMinV()) * image.getHeight()));
+            }
+            size = Math.min(size, MAX_SIZE);
+
+            float[][] inverseRotations = new float[6][];
+            for (int i = 0; i < 6; i++) {
+                inverseRotations[i] = inverseFaceRotation(i);
+            }
+
+            int textureId = GL11.glGenTextures();
+            GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, textureId);
+            GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+            GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+            GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+            GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+            GL11.glTexParameteri(GL13.GL_TEXTURE_CUBE_MAP, GL12.GL_TEXTURE_WRAP_R, GL12.GL_CLAMP_TO_EDGE);
+            // native image uploads leave these set
+            RenderSystem.pixelStore(GL11.GL_UNPACK_ROW_LENGTH, 0);
+            RenderSystem.pixelStore(GL11.GL_UNPACK_SKIP_PIXELS, 0);
+            RenderSystem.pixelStore(GL11.GL_UNPACK_SKIP_ROWS, 0);
+            RenderSystem.pixelStore(GL11.GL_UNPACK_ALIGNMENT, 4);
+
+            IntBuffer pixels = MemoryUtil.memAllocInt(size * size);
+            try {
+                float[] direction = new float[3];
+                for (int target = 0; target < 6; target++) {
+                    pixels.clear();
+                    for (int y = 0; y < size; y++) {
+                        float tc = 2.0F * (y + 0.5F) / size - 1.0F;
+                        for (int x = 0; x < size; x++) {
+                            float sc = 2.0F * (x + 0.5F) / size - 1.0F;
+                            cubeMapDirection(target, sc, tc, direction);
+                            pixels.put(sample(faces, images, inverseRotations, direction));
+                        }
+                    }
+                    pixels.flip();
+                    GL11.glTexImage2D(GL13.GL_TEXTURE_CUBE_MAP_POSITIVE_X + target, 0, GL11.GL_RGBA8, size, size, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, pixels);
+                }
+            } finally {
+                MemoryUtil.memFree(pixels);
+                GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, 0);
+            }
+            return new SkyboxCubemap(textureId);
+        } catch (IOException | RuntimeException e) {
+            FabricSkyBoxesClient.getLogger().warn("Could not build a cube map for " + faces.getNorth().getTextureId(), e);
+            return null;
+        } finally {
+            images.values().forEach(NativeImage::close);
+        }
+    }
+
+    /**
+     * Gets the direction of a cube map texel, as defined by the cube map face selection of OpenGL.
+     */
+    private static void cubeMapDirection(int target, float sc, float tc, float[] direction) {
+        switch (target) {
+            case 0: // +X
+                direction[0] = 1.0F; direction[1] = -tc; direction[2] = -sc;
+                break;
+            case 1: // -X
+                direction[0] = -1.0F; direction[1] = -tc; direction[2] = sc;
+                break;
+            case 2: // +Y
+                direction[0] = sc; direction[1] = 1.0F; direction[2] = tc;
+                break;
+            case 3: // -Y
+                direction[0] = sc; direction[1] = -1.0F; direction[2] = -tc;
+                break;
+            case 4: // +Z
+                direction[0] = sc; direction[1] = -tc; direction[2] = 1.0F;
+                break;
+            default: // -Z
+                direction[0] = -sc; direction[1] = -tc; direction[2] = -1.0F;
+                break;
+        }
+    }
+
+    /**
+     * Gets the inverse of the rotation of a face, as the rows of a 3x3 matrix. The rotation
+     * is orthonormal, so its inverse is its transpose, whose rows are the rotated axes.
+     */
+    private static float[] inverseFaceRotation(int face) {
+        MatrixStack matrices = new MatrixStack();
+        SkyboxCubeMesh.applyFaceRotation(matrices, face);
+        Matrix3f rotation = matrices.last().normal();
+        float[] inverse = new float[9];
+        Vector3f[] axes = {new Vector3f(1.0F, 0.0F, 0.0F), new Vector3f(0.0F, 1.0F, 0.0F), new Vector3f(0.0F, 0.0F, 1.0F)};
+        for (int i = 0; i < 3; i++) {
+            axes[i].transform(rotation);
+            inverse[i * 3] = axes[i].x();
+            inverse[i * 3 + 1] = axes[i].y();
+            inverse[i * 3 + 2] = axes[i].z();
+        }
+        return inverse;
+    }
+
+    /**
+     * Finds the face quad the direction points at and samples its texture there. Every face
+     * is the plane y = -100 of its own space, spanning -100 to 100 on x and z.
+     *
+     * @return The color in the ABGR layout of {@link NativeImage}.
+     */
+    private static int sample(Textures faces, Map<ResourceLocation, NativeImage> images, float[][] inverseRotations, float[] direction) {
+        for (int i = 0; i < 6; i++) {
+            float[] m = inverseRotations[i];
+            float x = m[0] * direction[0] + m[1] * direction[1] + m[2] * direction[2];
+            float y = m[3] * direction[0] + m[4] * direction[1] + m[5] * direction[2];
+            float z = m[6] * direction[0] + m[7] * direction[1] + m[8] * direction[2];
+            if (y >= 0 || Math.abs(x) > -y || Math.abs(z) > -y) {
+                continue;
+            }
+            Texture face = faces.byId(i);
+            NativeImage image = images.get(face.getTextureId());
+            float s = (x / -y + 1.0F) / 2.0F;
+            float t = (z / -y + 1.0F) / 2.0F;
+            float u = MathHelper.lerp(s, face.getMinU(), face.getMaxU());
+            float v = MathHelper.lerp(t, face.getMinV(), face.getMaxV());
+            int px = MathHelper.clamp((int) (u * image.getWidth()), 0, image.getWidth() - 1);
+            int py = MathHelper.clamp((int) (v * image.getHeight()), 0, image.getHeight() - 1);
+            return image.getPixelRGBA(px, py);
+        }
+        return 0;
+    }
+
+    /**
+     * Draws the cube geometry of the given mesh with this cube map. The cube map target and
+     * texture coordinate generation are set directly rather than through the
+     * {@link SkyStateTracker}, and disabled again before returning.
+     *
+     * @param matrix The transformation of the skybox.
+     * @param mesh   Any mesh of the skybox, only its positions are used.
+     */
+    public void draw(Matrix4f matrix, SkyboxCubeMesh mesh) {
+        GL11.glEnable(GL13.GL_TEXTURE_CUBE_MAP);
+        GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, this.textureId);
+        GL11.glTexGeni(GL11.GL_S, GL11.GL_TEXTURE_GEN_MODE, GL11.GL_OBJECT_LINEAR);
+        GL11.glTexGeni(GL11.GL_T, GL11.GL_TEXTURE_GEN_MODE, GL11.GL_OBJECT_LINEAR);
+        GL11.glTexGeni(GL11.GL_R, GL11.GL_TEXTURE_GEN_MODE, GL11.GL_OBJECT_LINEAR);
+        GL11.glTexGenfv(GL11.GL_S, GL11.GL_OBJECT_PLANE, PLANE_S);
+        GL11.glTexGenfv(GL11.GL_T, GL11.GL_OBJECT_PLANE, PLANE_T);
+        GL11.glTexGenfv(GL11.GL_R, GL11.GL_OBJECT_PLANE, PLANE_R);
+        GL11.glEnable(GL11.GL_TEXTURE_GEN_S);
+        GL11.glEnable(GL11.GL_TEXTURE_GEN_T);
+        GL11.glEnable(GL11.GL_TEXTURE_GEN_R);
+
+        mesh.drawGeometry(matrix);
+
+        GL11.glDisable(GL11.GL_TEXTURE_GEN_S);
+        GL11.glDisable(GL11.GL_TEXTURE_GEN_T);
+        GL11.glDisable(GL11.GL_TEXTURE_GEN_R);
+        GL11.glBindTexture(GL13.GL_TEXTURE_CUBE_MAP, 0);
+        GL11.glDisable(GL13.GL_TEXTURE_CUBE_MAP);
+    }
+
+    @Override
+    public void close() {
+        GL11.glDeleteTextures(this.textureId);
+    }
+}
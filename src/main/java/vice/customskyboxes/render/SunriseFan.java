@@ -0,0 +1,103 @@
+package vice.customskyboxes.render;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3f;
+import vice.customskyboxes.SkyboxManager;
+
+/**
+ * Draws the sunrise and sunset glow of vanilla from a fan uploaded once.
+ * <p>
+ * Vanilla colors the center of the fan with the sunrise color and fades it out towards the
+ * rim, and stretches the rim along z by the alpha of that color. Here the fade comes from a
+ * two texel gradient texture modulated by the current color, and the stretch from a scale of
+ * the pose, so only the color and the matrix change between frames.
+ */
+public class SunriseFan {
+    private static final SunriseFan INSTANCE = new SunriseFan();
+
+    private static final int RIM_VERTICES = 17;
+    // the centers of the transparent and opaque texel, so linear filtering fades between them
+    private static final float RIM_U = 0.25F;
+    private static final float CENTER_U = 0.75F;
+
+    private final float[] color = new float[4];
+    private boolean visible;
+    private long colorFrame = -1;
+
+    private VertexBuffer buffer;
+    private DynamicTexture gradient;
+
+    public static SunriseFan getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Draws the fan if the sun is rising or setting. Must be called on the render thread.
+     */
+    public void render(ClientWorld world, MatrixStack matrices, float tickDelta) {
+        long frame = SkyboxManager.getInstance().getFrame();
+        if (this.colorFrame != frame) {
+            // the same for every skybox of a frame, so only asked for once
+            this.colorFrame = frame;
+            float[] sunriseColor = world.effects().getSunriseColor(world.getTimeOfDay(tickDelta), tickDelta);
+            this.visible = sunriseColor != null;
+            if (this.visible) {
+                System.arraycopy(sunriseColor, 0, this.color, 0, 4);
+            }
+        }
+        if (!this.visible) {
+            return;
+        }
+        if (this.buffer == null) {
+            this.upload();
+        }
+
+        SkyStateTracker.getInstance().enableTexture();
+        this.gradient.bind();
+        RenderSystem.color4f(this.color[0], this.color[1], this.color[2], this.color[3]);
+
+        matrices.pushPose();
+        matrices.mulPose(Vector3f.XP.rotationDegrees(90.0F));
+        float skySide = MathHelper.sin(world.getSunAngle(tickDelta)) < 0.0F ? 180.0F : 0.0F;
+        matrices.mulPose(Vector3f.ZP.rotationDegrees(skySide));
+        matrices.mulPose(Vector3f.ZP.rotationDegrees(90.0F));
+        matrices.scale(1.0F, 1.0F, this.color[3]);
+
+        this.buffer.bind();
+        DefaultVertexFormats.POSITION_TEX.setupBufferState(0L);
+        this.buffer.draw(matrices.last().pose(), 6);
+        VertexBuffer.unbind();
+        DefaultVertexFormats.POSITION_TEX.clearBufferState();
+        matrices.popPose();
+    }
+
+    private void upload() {
+        BufferBuilder bufferBuilder = Tessellator.getInstance().getBuilder();
+        bufferBuilder.begin(6, DefaultVertexFormats.POSITION_TEX);
+        bufferBuilder.vertex(0.0F, 100.0F, 0.0F).uv(CENTER_U, 0.5F).endVertex();
+        for (int n = 0; n < RIM_VERTICES; ++n) {
+            float o = (float) n * 6.2831855F / 16.0F;
+            float p = MathHelper.sin(o);
+            float q = MathHelper.cos(o);
+            bufferBuilder.vertex(p * 120.0F, q * 120.0F, -q * 40.0F).uv(RIM_U, 0.5F).endVertex();
+        }
+        bufferBuilder.end();
+        this.buffer = new VertexBuffer(DefaultVertexFormats.POSITION_TEX);
+        this.buffer.upload(bufferBuilder);
+
+        NativeImage image = new NativeImage(2, 1, false);
+        image.setPixelRGBA(0, 0, 0x00FFFFFF);
+        image.setPixelRGBA(1, 0, 0xFFFFFFFF);
+        this.gradient = new DynamicTexture(image);
+        this.gradient.setFilter(true, false);
+    }
+}
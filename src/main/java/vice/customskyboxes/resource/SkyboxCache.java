@@ -0,0 +1,165 @@
+package vice.customskyboxes.resource;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.NBTDynamicOps;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.resources.IResourcePack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.util.Constants;
+import org.jetbrains.annotations.Nullable;
+import vice.customskyboxes.FabricSkyBoxesClient;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.skyboxes.SkyboxType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An on-disk cache of the decoded skybox set, stored as compressed NBT.
+ * <p>
+ * The cache is keyed by a hash of the active resource packs and the contents of every
+ * skybox file, so it is only used when none of them changed since it was written.
+ * Skyboxes are stored in the form produced by their type's latest codec.
+ */
+public class SkyboxCache {
+    /**
+     * Bump this whenever the stored format or the meaning of any codec changes.
+     */
+    private static final int FORMAT_VERSION = 10;
+
+    private final Path path;
+
+    public SkyboxCache(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Hashes the contents of a single skybox file.
+     */
+    public static HashCode hashContent(byte[] content) {
+        return Hashing.sha256().hashBytes(content);
+    }
+
+    /**
+     * Computes the cache key for the given skybox files.
+     *
+     * @param manager The resource manager the files were read from.
+     * @param hashes  The content hash of every skybox file, in load order.
+     * @return A hex string identifying this exact set of packs and files.
+     */
+    public static String computeKey(IResourceManager manager, Map<ResourceLocation, HashCode> hashes) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT_VERSION);
+        manager.listPacks().map(IResourcePack::getName).forEachOrdered(name -> hasher.putString(name, StandardCharsets.UTF_8));
+        hashes.forEach((id, hash) -> {
+            hasher.putString(id.toString(), StandardCharsets.UTF_8);
+            hasher.putBytes(hash.asBytes());
+        });
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return The cached skyboxes by file id if the cache exists and was written for the given key, null otherwise.
+     */
+    @Nullable
+    public Map<ResourceLocation, AbstractSkybox> read(String key) {
+        if (!Files.isRegularFile(this.path)) {
+            return null;
+        }
+
+        CompoundNBT root;
+        try {
+            root = CompressedStreamTools.readCompressed(this.path.toFile());
+        } catch (IOException e) {
+            FabricSkyBoxesClient.getLogger().warn("Could not read skybox cache " + this.path, e);
+            return null;
+        }
+
+        if (!key.equals(root.getString("key"))) {
+            return null;
+        }
+
+        ListNBT entries = root.getList("skyboxes", Constants.NBT.TAG_COMPOUND);
+        Map<ResourceLocation, AbstractSkybox> skyboxes = new LinkedHashMap<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            CompoundNBT entry = entries.getCompound(i);
+            SkyboxType<? extends AbstractSkybox> type = SkyboxType.REGISTRY.getValue(new ResourceLocation(entry.getString("type")));
+            if (type == null) {
+                return null;
+            }
+            Optional<? extends AbstractSkybox> skybox = type.getCodec(entry.getInt("schemaVersion")).parse(NBTDynamicOps.INSTANCE, entry.get("data")).result();
+            if (!skybox.isPresent()) {
+                FabricSkyBoxesClient.getLogger().warn("Skybox cache entry " + i + " is invalid, ignoring cache");
+                return null;
+            }
+            skyboxes.put(new ResourceLocation(entry.getString("id")), skybox.get());
+        }
+        return skyboxes;
+    }
+
+    /**
+     * Writes the given skyboxes to the cache. Nothing is written if any of them can't be encoded.
+     *
+     * @param skyboxes The skyboxes by file id. Null values stand for invalid files and are skipped.
+     */
+    public void write(String key, Map<ResourceLocation, AbstractSkybox> skyboxes) {
+        ListNBT entries = new ListNBT();
+        for (Map.Entry<ResourceLocation, AbstractSkybox> skyboxEntry : skyboxes.entrySet()) {
+            AbstractSkybox skybox = skyboxEntry.getValue();
+            if (skybox == null) {
+                continue;
+            }
+            SkyboxType<? extends AbstractSkybox> type = skybox.getType();
+            if (type.getRegistryName() == null) {
+                FabricSkyBoxesClient.getLogger().debug("Not caching skyboxes, type " + type.getName() + " is not registered");
+                return;
+            }
+            int schemaVersion = type.getLatestSchemaVersion();
+            Optional<INBT> data = encode(type, schemaVersion, skybox);
+            if (!data.isPresent()) {
+                FabricSkyBoxesClient.getLogger().debug("Not caching skyboxes, could not encode a skybox of type " + type.getName());
+                return;
+            }
+            CompoundNBT entry = new CompoundNBT();
+            entry.putString("id", skyboxEntry.getKey().toString());
+            entry.putString("type", type.getRegistryName().toString());
+            entry.putInt("schemaVersion", schemaVersion);
+            entry.put("data", data.get());
+            entries.add(entry);
+        }
+
+        CompoundNBT root = new CompoundNBT();
+        root.putString("key", key);
+        root.put("skyboxes", entries);
+
+        try {
+            Files.createDirectories(this.path.getParent());
+            Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+            CompressedStreamTools.writeCompressed(root, temp.toFile());
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            FabricSkyBoxesClient.getLogger().warn("Could not write skybox cache " + this.path, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends AbstractSkybox> Optional<INBT> encode(SkyboxType<T> type, int schemaVersion, AbstractSkybox skybox) {
+        try {
+            return type.getCodec(schemaVersion).encodeStart(NBTDynamicOps.INSTANCE, (T) skybox).result();
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
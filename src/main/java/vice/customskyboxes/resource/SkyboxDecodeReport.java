@@ -0,0 +1,61 @@
+package vice.customskyboxes.resource;
+
+import net.minecraft.util.ResourceLocation;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the problems found while decoding skybox files, so they can be reported
+ * together once a reload is done. Safe to use from several threads at once.
+ */
+public class SkyboxDecodeReport {
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    public void add(ResourceLocation id, String message) {
+        this.entries.add(new Entry(id, message));
+    }
+
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    public List<Entry> getEntries() {
+        return new ArrayList<>(this.entries);
+    }
+
+    /**
+     * Logs every collected problem as a single warning. Does nothing if there are none.
+     */
+    public void log(Logger logger) {
+        if (this.entries.isEmpty()) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder("Skipped ").append(this.entries.size()).append(" invalid skybox(es):");
+        for (Entry entry : this.entries) {
+            builder.append("\n  ").append(entry.getId()).append(": ").append(entry.getMessage());
+        }
+        logger.warn(builder.toString());
+    }
+
+    public static class Entry {
+        private final ResourceLocation id;
+        private final String message;
+
+        private Entry(ResourceLocation id, String message) {
+            this.id = id;
+            this.message = message;
+        }
+
+        public ResourceLocation getId() {
+            return this.id;
+        }
+
+        public String getMessage() {
+            return this.message;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package vice.customskyboxes.resource;
+
+import com.google.common.collect.ImmutableTable;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.util.JSONUtils;
+import net.minecraft.util.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.skyboxes.SkyboxType;
+import vice.customskyboxes.util.JsonObjectWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Decodes skybox json in a single pass. The {@code type} and {@code schemaVersion} header
+ * fields are read directly, then the whole object is handed once to the matching codec.
+ */
+public class SkyboxDecoder {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().serializeNulls().setLenient().create();
+
+    /**
+     * Every registered codec by skybox type id and schema version.
+     */
+    private static final ImmutableTable<ResourceLocation, Integer, Codec<? extends AbstractSkybox>> CODECS;
+
+    static {
+        ImmutableTable.Builder<ResourceLocation, Integer, Codec<? extends AbstractSkybox>> builder = ImmutableTable.builder();
+        for (SkyboxType<? extends AbstractSkybox> type : SkyboxType.REGISTRY.getValues()) {
+            ResourceLocation typeId = type.getRegistryName();
+            type.getCodecs().forEach((schemaVersion, codec) -> builder.put(typeId, schemaVersion, codec));
+        }
+        CODECS = builder.build();
+    }
+
+    /**
+     * Decodes skybox files concurrently.
+     *
+     * @param files    The contents of every file by id.
+     * @param executor The executor to decode on, one task per file.
+     * @param report   Where to add problems.
+     * @return The skyboxes by file id, in the order of {@code files}. Invalid files map to null.
+     */
+    public static CompletableFuture<Map<ResourceLocation, AbstractSkybox>> decodeAll(Map<ResourceLocation, byte[]> files, Executor executor, SkyboxDecodeReport report) {
+        Map<ResourceLocation, CompletableFuture<AbstractSkybox>> decodes = new LinkedHashMap<>(files.size());
+        files.forEach((id, content) -> decodes.put(id, CompletableFuture.supplyAsync(() -> decodeFile(id, content, report), executor)));
+
+        return CompletableFuture.allOf(decodes.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<ResourceLocation, AbstractSkybox> skyboxes = new LinkedHashMap<>(decodes.size());
+            decodes.forEach((id, decode) -> skyboxes.put(id, decode.join()));
+            return skyboxes;
+        });
+    }
+
+    /**
+     * Decodes a single skybox file, through the {@link StreamingSkyboxReader} when possible
+     * and through the codecs otherwise.
+     *
+     * @return the decoded skybox, or null if the file was invalid
+     */
+    @Nullable
+    public static AbstractSkybox decodeFile(ResourceLocation id, byte[] content, SkyboxDecodeReport report) {
+        AbstractSkybox skybox = StreamingSkyboxReader.read(content);
+        if (skybox != null) {
+            return skybox;
+        }
+
+        JsonObject json;
+        try {
+            json = GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8), JsonObject.class);
+        } catch (JsonParseException e) {
+            report.add(id, "Malformed json: " + e.getMessage());
+            return null;
+        }
+        if (json == null) {
+            report.add(id, "Empty file");
+            return null;
+        }
+        try {
+            return decode(id, json, report);
+        } catch (RuntimeException e) {
+            // codecs may throw from inside their mapping functions, e.g. on an unknown weather name
+            report.add(id, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a skybox. Problems are added to the report instead of being thrown.
+     *
+     * @param id     The id of the file being decoded, used for reporting.
+     * @param json   The contents of the file.
+     * @param report Where to add problems.
+     * @return The skybox, or null if it was invalid.
+     */
+    @Nullable
+    public static AbstractSkybox decode(ResourceLocation id, JsonObject json, SkyboxDecodeReport report) {
+        JsonElement typeElement = json.get("type");
+        if (typeElement == null || !JSONUtils.isStringValue(typeElement)) {
+            report.add(id, "Missing or invalid \"type\"");
+            return null;
+        }
+        JsonElement schemaVersionElement = json.get("schemaVersion");
+        if (schemaVersionElement == null || !JSONUtils.isNumberValue(schemaVersionElement)) {
+            report.add(id, "Missing or invalid \"schemaVersion\"");
+            return null;
+        }
+
+        ResourceLocation typeId;
+        try {
+            typeId = SkyboxType.parseSkyboxId(typeElement.getAsString());
+        } catch (RuntimeException e) {
+            report.add(id, "Invalid skybox type: " + e.getMessage());
+            return null;
+        }
+        int schemaVersion = schemaVersionElement.getAsInt();
+
+        if (schemaVersion == 1) {
+            return decodeLegacy(id, typeId, json, report);
+        }
+
+        Codec<? extends AbstractSkybox> codec = CODECS.get(typeId, schemaVersion);
+        if (codec == null) {
+            codec = lookupCodec(typeId, schemaVersion);
+            if (codec == null) {
+                report.add(id, CODECS.containsRow(typeId) || SkyboxType.REGISTRY.containsKey(typeId)
+                        ? String.format("Unsupported schema version '%d' for skybox type %s", schemaVersion, typeId)
+                        : "Unknown skybox type: " + typeId.getPath().replace('_', '-'));
+                return null;
+            }
+        }
+
+        DataResult<? extends AbstractSkybox> result = codec.parse(JsonOps.INSTANCE, json);
+        Optional<? extends AbstractSkybox> skybox = result.result();
+        if (!skybox.isPresent()) {
+            report.add(id, result.error().map(error -> error.message()).orElse("Unknown error"));
+            return null;
+        }
+        return skybox.get();
+    }
+
+    /**
+     * Looks up codecs of types registered after this class was loaded.
+     */
+    @Nullable
+    private static Codec<? extends AbstractSkybox> lookupCodec(ResourceLocation typeId, int schemaVersion) {
+        SkyboxType<? extends AbstractSkybox> type = SkyboxType.REGISTRY.getValue(typeId);
+        return type == null ? null : type.getCodecs().get(schemaVersion);
+    }
+
+    @Nullable
+    private static AbstractSkybox decodeLegacy(ResourceLocation id, ResourceLocation typeId, JsonObject json, SkyboxDecodeReport report) {
+        SkyboxType<? extends AbstractSkybox> type = SkyboxType.REGISTRY.getValue(typeId);
+        if (type == null) {
+            report.add(id, "Unknown skybox type: " + typeId.getPath().replace('_', '-'));
+            return null;
+        }
+        if (!type.isLegacySupported() || type.getDeserializer() == null) {
+            report.add(id, "Unsupported schema version '1' for skybox type " + type.getName());
+            return null;
+        }
+
+        JsonObjectWrapper objectWrapper = new JsonObjectWrapper();
+        objectWrapper.setFocusedObject(json);
+        try {
+            AbstractSkybox skybox = type.instantiate();
+            type.getDeserializer().getDeserializer().accept(objectWrapper, skybox);
+            return skybox;
+        } catch (RuntimeException e) {
+            report.add(id, "Invalid legacy skybox: " + e);
+            return null;
+        }
+    }
+}
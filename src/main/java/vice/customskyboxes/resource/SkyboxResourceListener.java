@@ -1,119 +1,235 @@
 package vice.customskyboxes.resource;
 
-import com.google.common.base.Preconditions;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
-import com.mojang.serialization.JsonOps;
+import com.google.common.hash.HashCode;
+import net.minecraft.client.Minecraft;
 import net.minecraft.profiler.IProfiler;
 import net.minecraft.resources.*;
 import net.minecraft.util.Unit;
+import net.minecraft.util.Util;
 import net.minecraftforge.resource.IResourceType;
-import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import vice.customskyboxes.FabricSkyBoxesClient;
 import vice.customskyboxes.SkyboxManager;
 import vice.customskyboxes.skyboxes.AbstractSkybox;
-import vice.customskyboxes.skyboxes.SkyboxType;
-import vice.customskyboxes.util.JsonObjectWrapper;
-import vice.customskyboxes.util.object.internal.Metadata;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.function.Supplier;
 import net.minecraftforge.resource.ISelectiveResourceReloadListener;
-
+import net.minecraftforge.resource.SelectiveReloadStateHandler;
+
+/**
+ * Loads skyboxes from the {@code sky} folder of every resource pack.
+ * <p>
+ * Reloading is split into two stages: a prepare stage which reads and decodes
+ * every skybox file concurrently on the background executor, and an apply stage
+ * which installs the decoded skyboxes into the {@link SkyboxManager} on the game thread.
+ * Only files whose content changed since the last reload are decoded again; unchanged files keep
+ * their skybox instance, and with it their current alpha. Decoded skyboxes are also kept in a
+ * {@link SkyboxCache} so unchanged packs skip decoding on the next launch.
+ * <p>
+ * Selective reloads that don't include {@link SkyboxResourceType#SKYBOXES}, such as a language
+ * change, leave the skyboxes untouched.
+ * <p>
+ * Full reloads and {@link #reloadSkyboxes() skybox reloads} are queued behind each other: each
+ * one starts preparing only once the one before has installed its skyboxes, so they apply in
+ * the order they were started, each compares against what the previous one installed, and the
+ * cache is never written by two of them at once.
+ */
 public class SkyboxResourceListener implements ISelectiveResourceReloadListener
 {
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().serializeNulls().setLenient().create();
-    private static final JsonObjectWrapper objectWrapper = new JsonObjectWrapper();
-
+    private static final SkyboxResourceListener INSTANCE = new SkyboxResourceListener();
+
+    private static final SkyboxCache CACHE = new SkyboxCache(FMLPaths.GAMEDIR.get().resolve(FabricSkyBoxesClient.MODID).resolve("skyboxes.cache"));
+
+    /**
+     * The skyboxes installed by the last reload, by file id. Replaced as a whole on every apply.
+     */
+    private volatile Map<ResourceLocation, LoadedSkybox> loadedSkyboxes = Collections.emptyMap();
+    /**
+     * Completes once the last queued reload has installed its skyboxes, or failed.
+     */
+    private CompletableFuture<Void> pendingReload = CompletableFuture.completedFuture(null);
+
+    /**
+     * Reads the raw contents of a single skybox file.
+     *
+     * @return the file contents, or null if the file could not be read
+     */
+    @Nullable
+    private static byte[] readSkybox(IResourceManager manager, ResourceLocation id) {
+        try (IResource resource = manager.getResource(id)) {
+            return IOUtils.toByteArray(resource.getInputStream());
+        } catch (IOException e) {
+            FabricSkyBoxesClient.getLogger().error("Error reading skybox " + id.toString(), e);
+            return null;
+        }
+    }
 
-    private static AbstractSkybox parseSkyboxJson(ResourceLocation id) {
-        AbstractSkybox skybox;
-        Metadata metadata;
-        FabricSkyBoxesClient.LOGGER.info("parseSkyboxJson for " + id);
+    private static <T> CompletableFuture<List<T>> allInOrder(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<T> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
 
-        try {
-            metadata = Metadata.CODEC.decode(JsonOps.INSTANCE, objectWrapper.getFocusedObject()).getOrThrow(false, System.err::println).getFirst();
-        } catch (RuntimeException e) {
-            FabricSkyBoxesClient.getLogger().warn("Skipping invalid skybox " + id.toString(), e);
-            FabricSkyBoxesClient.getLogger().warn(objectWrapper.toString());
-            return null;
+    /**
+     * Reads and hashes every skybox file, then decodes only the files whose content changed
+     * since the last reload. Unchanged files keep their existing skybox instance. On the first
+     * load the {@link SkyboxCache} is consulted before falling back to decoding.
+     * The returned map keeps the order in which the resource manager listed the files.
+     */
+    private CompletableFuture<Map<ResourceLocation, LoadedSkybox>> prepare(IResourceManager manager, Executor backgroundExecutor) {
+        long start = System.nanoTime();
+        Map<ResourceLocation, LoadedSkybox> previous = this.loadedSkyboxes;
+        List<ResourceLocation> ids = new ArrayList<>(manager.listResources("sky", (string) -> string.endsWith(".json")));
+
+        List<CompletableFuture<byte[]>> reads = new ArrayList<>(ids.size());
+        for (ResourceLocation id : ids) {
+            reads.add(CompletableFuture.supplyAsync(() -> readSkybox(manager, id), backgroundExecutor));
         }
 
-        FabricSkyBoxesClient.LOGGER.info("decoded metadata for " + id);
+        return allInOrder(reads).thenCompose(contents -> {
+            Map<ResourceLocation, HashCode> hashes = new LinkedHashMap<>(ids.size());
+            Map<ResourceLocation, byte[]> changed = new LinkedHashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                byte[] content = contents.get(i);
+                if (content == null) {
+                    continue;
+                }
+                ResourceLocation id = ids.get(i);
+                HashCode hash = SkyboxCache.hashContent(content);
+                hashes.put(id, hash);
+                LoadedSkybox old = previous.get(id);
+                if (old == null || !old.hash.equals(hash)) {
+                    changed.put(id, content);
+                }
+            }
 
-        SkyboxType<? extends AbstractSkybox> type = SkyboxType.REGISTRY.getValue(metadata.getType());
+            if (changed.isEmpty() && hashes.size() == previous.size()) {
+                FabricSkyBoxesClient.LOGGER.debug("No skybox files changed");
+                return CompletableFuture.completedFuture(previous);
+            }
 
-        Preconditions.checkNotNull(type, "Unknown skybox type: " + metadata.getType().getPath().replace('_', '-'));
-        if (metadata.getSchemaVersion() == 1)
-        {
-            Preconditions.checkArgument(type.isLegacySupported(), "Unsupported schema version '1' for skybox type " + type.getName());
-            FabricSkyBoxesClient.getLogger().debug("Using legacy deserializer for skybox " + id.toString());
-            skybox = type.instantiate();
-            //noinspection ConstantConditions
-            type.getDeserializer().getDeserializer().accept(objectWrapper, skybox);
-        }
-        else
-        {
-            FabricSkyBoxesClient.LOGGER.info("getSchemaVersion for " + id);
+            String key = SkyboxCache.computeKey(manager, hashes);
+            if (previous.isEmpty()) {
+                Map<ResourceLocation, AbstractSkybox> cached = CACHE.read(key);
+                if (cached != null) {
+                    FabricSkyBoxesClient.LOGGER.info("Loaded " + cached.size() + " skyboxes from cache in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    Map<ResourceLocation, LoadedSkybox> loaded = new LinkedHashMap<>(hashes.size());
+                    hashes.forEach((id, hash) -> loaded.put(id, new LoadedSkybox(hash, cached.get(id))));
+                    return CompletableFuture.completedFuture(loaded);
+                }
+            }
 
-            skybox = type.getCodec(metadata.getSchemaVersion())
-                    .decode(JsonOps.INSTANCE, objectWrapper.getFocusedObject())
-                    .getOrThrow(false, System.err::println).getFirst();
+            SkyboxDecodeReport report = new SkyboxDecodeReport();
+            return SkyboxDecoder.decodeAll(changed, backgroundExecutor, report).thenApply(decoded -> {
+                Map<ResourceLocation, LoadedSkybox> loaded = new LinkedHashMap<>(hashes.size());
+                Map<ResourceLocation, AbstractSkybox> skyboxes = new LinkedHashMap<>(hashes.size());
+                hashes.forEach((id, hash) -> {
+                    AbstractSkybox skybox = decoded.containsKey(id) ? decoded.get(id) : previous.get(id).skybox;
+                    loaded.put(id, new LoadedSkybox(hash, skybox));
+                    skyboxes.put(id, skybox);
+                });
+                report.log(FabricSkyBoxesClient.getLogger());
+                FabricSkyBoxesClient.LOGGER.info("Decoded " + changed.size() + " of " + hashes.size() + " skyboxes in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                CACHE.write(key, skyboxes);
+                return loaded;
+            });
+        });
+    }
+
+    private void apply(Map<ResourceLocation, LoadedSkybox> loaded) {
+        this.loadedSkyboxes = loaded;
+        List<AbstractSkybox> skyboxes = new ArrayList<>(loaded.size());
+        for (LoadedSkybox loadedSkybox : loaded.values()) {
+            if (loadedSkybox.skybox != null) {
+                skyboxes.add(loadedSkybox.skybox);
+            }
         }
+        SkyboxManager.getInstance().setSkyboxes(skyboxes);
+    }
+
+    /**
+     * Queues a reload behind the pending one. A failed reload doesn't hold up the ones after it.
+     *
+     * @param executor The executor the reload is started on.
+     * @return A future that completes once the queued reload is done.
+     */
+    private synchronized CompletableFuture<Void> queueReload(Executor executor, Supplier<CompletableFuture<Void>> reload) {
+        CompletableFuture<Void> future = this.pendingReload.handle((v, e) -> null).thenComposeAsync(v -> reload.get(), executor);
+        this.pendingReload = future;
+        return future;
+    }
 
-        FabricSkyBoxesClient.LOGGER.info("returning skybox for " + id);
-        return skybox;
+    /**
+     * Reloads only the skyboxes from the client's current resource manager, without
+     * going through a full resource reload. Must be called on the render thread. If a reload
+     * is already running, this one starts once it is done.
+     *
+     * @return A future that completes once the new skyboxes are installed.
+     */
+    public CompletableFuture<Void> reloadSkyboxes() {
+        Minecraft client = Minecraft.getInstance();
+        IResourceManager manager = client.getResourceManager();
+        Executor backgroundExecutor = Util.backgroundExecutor();
+        return this.queueReload(backgroundExecutor, () -> this.prepare(manager, backgroundExecutor)
+                .thenAcceptAsync(this::apply, client));
     }
 
+    @Override
+    public CompletableFuture<Void> reload(IFutureReloadListener.IStage stage, IResourceManager manager, IProfiler preparationsProfiler, IProfiler reloadProfiler, Executor backgroundExecutor, Executor gameExecutor) {
+        if (!SelectiveReloadStateHandler.INSTANCE.get().test(SkyboxResourceType.SKYBOXES)) {
+            return stage.wait(Unit.INSTANCE).thenRun(() -> {});
+        }
+        return this.queueReload(backgroundExecutor, () -> this.prepare(manager, backgroundExecutor)
+                .thenCompose(stage::wait)
+                .thenAcceptAsync(this::apply, gameExecutor));
+    }
+
+    /**
+     * Serial fallback, used when the listener is reloaded synchronously. Produces the same
+     * skyboxes in the same order as {@link #reload}. It runs on the calling thread right away
+     * rather than being queued, as waiting there for a queued reload to apply on the game
+     * thread could deadlock.
+     */
     @Override
     public void onResourceManagerReload(IResourceManager manager, Predicate<IResourceType> resourcePredicate)
     {
-        FabricSkyBoxesClient.LOGGER.info("onResourceManagerReload");
-
-        SkyboxManager skyboxManager = SkyboxManager.getInstance();
-
-        // clear registered skyboxes on reload
-        skyboxManager.clearSkyboxes();
-
-        // load new skyboxes
-        Collection<ResourceLocation> resources = manager.listResources("sky", (string) -> string.endsWith(".json"));
-
-        for (ResourceLocation id : resources) {
-
-            IResource resource;
-            try {
-                resource = manager.getResource(id);
-                try {
-                    JsonObject json = GSON.fromJson(new InputStreamReader(resource.getInputStream()), JsonObject.class);
-                    objectWrapper.setFocusedObject(json);
-                    AbstractSkybox skybox = SkyboxResourceListener.parseSkyboxJson(id);
-                    if (skybox != null) {
-                        skyboxManager.addSkybox(skybox);
-                    }
-                } finally {
-                    try {
-                        resource.close();
-                    } catch (IOException e) {
-                        FabricSkyBoxesClient.getLogger().error("Error closing resource " + id.toString());
-                        e.printStackTrace();
-                    }
-                }
-            } catch (IOException e) {
-                FabricSkyBoxesClient.getLogger().error("Error reading skybox " + id.toString());
-                e.printStackTrace();
-            }
+        if (!resourcePredicate.test(SkyboxResourceType.SKYBOXES)) {
+            return;
         }
+        apply(prepare(manager, Runnable::run).join());
+    }
 
+    public static SkyboxResourceListener getInstance() {
+        return INSTANCE;
+    }
+
+    private static class LoadedSkybox {
+        private final HashCode hash;
+        /**
+         * Null if the file was invalid.
+         */
+        @Nullable
+        private final AbstractSkybox skybox;
+
+        private LoadedSkybox(HashCode hash, @Nullable AbstractSkybox skybox) {
+            this.hash = hash;
+            this.skybox = skybox;
+        }
     }
 }
@@ -0,0 +1,12 @@
+package vice.customskyboxes.resource;
+
+import net.minecraftforge.resource.IResourceType;
+
+/**
+ * Resource types owned by this mod, used with Forge's selective resource reloading.
+ * Pass {@link #SKYBOXES} to {@code ForgeHooksClient.refreshResources} to reload only skyboxes
+ * along with any other listeners that opt in to it.
+ */
+public enum SkyboxResourceType implements IResourceType {
+    SKYBOXES
+}
@@ -0,0 +1,602 @@
+package vice.customskyboxes.resource;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3f;
+import net.minecraft.world.biome.Biome;
+import org.jetbrains.annotations.Nullable;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.skyboxes.MonoColorSkybox;
+import vice.customskyboxes.skyboxes.SkyboxType;
+import vice.customskyboxes.skyboxes.textured.AnimatedSquareTexturedSkybox;
+import vice.customskyboxes.skyboxes.textured.SingleSpriteAnimatedSquareTexturedSkybox;
+import vice.customskyboxes.skyboxes.textured.SquareTexturedSkybox;
+import vice.customskyboxes.util.object.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A fast path for decoding schema version 2 skyboxes of the built-in types. Reads the file
+ * with a streaming {@link JsonReader} straight into the skybox objects, without building a
+ * json tree or going through the codecs.
+ * <p>
+ * Anything this reader does not fully understand, like unknown fields, other types or
+ * values the codecs would reject, makes it give up and return null. The caller then decodes
+ * the file with {@link SkyboxDecoder}, which also reports any errors.
+ */
+public class StreamingSkyboxReader {
+    private static final int SCHEMA_VERSION = 2;
+
+    /**
+     * @return The decoded skybox, or null if the file must be decoded with the codecs instead.
+     */
+    @Nullable
+    public static AbstractSkybox read(byte[] content) {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            reader.setLenient(true);
+            return new StreamingSkyboxReader(reader).readSkybox();
+        } catch (IOException | RuntimeException e) {
+            // includes Unsupported, malformed json and invalid values
+            return null;
+        }
+    }
+
+    private final JsonReader reader;
+
+    // top level fields, filled in while reading as their order is not known up front
+    private int schemaVersion = -1;
+    private String type;
+    private DefaultProperties properties;
+    private Conditions conditions = Conditions.NO_CONDITIONS;
+    private Decorations decorations = Decorations.DEFAULT;
+    private Blend blend = Blend.DEFAULT;
+    private RGBA color = RGBA.ZERO;
+    private Textures textures;
+    private List<Textures> animationTextures;
+    private List<Texture> animationTextureList;
+    private Float fps;
+    private RenderMode renderMode;
+
+    private StreamingSkyboxReader(JsonReader reader) {
+        this.reader = reader;
+    }
+
+    private AbstractSkybox readSkybox() throws IOException {
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            String name = this.reader.nextName();
+            switch (name) {
+                case "schemaVersion":
+                    this.schemaVersion = this.readInt();
+                    break;
+                case "type":
+                    this.type = this.readString();
+                    break;
+                case "properties":
+                    this.properties = this.readProperties();
+                    break;
+                case "conditions":
+                    this.conditions = this.readConditions();
+                    break;
+                case "decorations":
+                    this.decorations = this.readDecorations();
+                    break;
+                case "blend":
+                    this.blend = this.readBlend();
+                    break;
+                case "color":
+                    this.color = this.readRGBA();
+                    break;
+                case "textures":
+                    this.textures = this.readTextures();
+                    break;
+                case "animationTextures":
+                    this.readAnimationTextures();
+                    break;
+                case "fps":
+                    this.fps = this.readFloat();
+                    break;
+                case "renderMode":
+                    this.renderMode = RenderMode.fromString(this.readString()).result().orElseThrow(Unsupported::new);
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+
+        if (this.schemaVersion != SCHEMA_VERSION || this.type == null || this.properties == null) {
+            throw new Unsupported();
+        }
+
+        SkyboxType<? extends AbstractSkybox> skyboxType = SkyboxType.REGISTRY.getValue(SkyboxType.parseSkyboxId(this.type));
+        if (this.renderMode != null && skyboxType == SkyboxType.MONO_COLOR_SKYBOX) {
+            // not read by the mono color codec, which would ignore it
+            throw new Unsupported();
+        }
+        RenderMode renderMode = this.renderMode == null ? RenderMode.FACES : this.renderMode;
+        if (skyboxType == SkyboxType.MONO_COLOR_SKYBOX) {
+            return new MonoColorSkybox(this.properties, this.conditions, this.decorations, this.color);
+        } else if (skyboxType == SkyboxType.SQUARE_TEXTURED_SKYBOX) {
+            return new SquareTexturedSkybox(this.properties, this.conditions, this.decorations, this.blend, require(this.textures), renderMode);
+        } else if (skyboxType == SkyboxType.ANIMATED_SQUARE_TEXTURED_SKYBOX) {
+            return new AnimatedSquareTexturedSkybox(this.properties, this.conditions, this.decorations, this.blend, require(this.animationTextures), require(this.fps), AnimatedSquareTexturedSkybox.DEFAULT_FRAME_CACHE_MEGABYTES, false, renderMode);
+        } else if (skyboxType == SkyboxType.SINGLE_SPRITE_ANIMATED_SQUARE_TEXTURED_SKYBOX) {
+            return new SingleSpriteAnimatedSquareTexturedSkybox(this.properties, this.conditions, this.decorations, this.blend, require(this.animationTextureList), require(this.fps), AnimatedSquareTexturedSkybox.DEFAULT_FRAME_CACHE_MEGABYTES, false, renderMode);
+        }
+        throw new Unsupported();
+    }
+
+    private DefaultProperties readProperties() throws IOException {
+        Fade fade = null;
+        float maxAlpha = 1.0F;
+        float transitionSpeed = 1.0F;
+        boolean changeFog = false;
+        RGBA fogColors = RGBA.ZERO;
+        boolean renderSunSkyTint = true;
+        boolean shouldRotate = false;
+        Rotation rotation = Rotation.DEFAULT;
+        int priority = 0;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "fade":
+                    fade = this.readFade();
+                    break;
+                case "maxAlpha":
+                    maxAlpha = this.readClampedFloat();
+                    break;
+                case "transitionSpeed":
+                    transitionSpeed = this.readClampedFloat();
+                    break;
+                case "changeFog":
+                    changeFog = this.readBoolean();
+                    break;
+                case "fogColors":
+                    fogColors = this.readRGBA();
+                    break;
+                case "sunSkyTint":
+                    renderSunSkyTint = this.readBoolean();
+                    break;
+                case "shouldRotate":
+                    shouldRotate = this.readBoolean();
+                    break;
+                case "rotation":
+                    rotation = this.readRotation();
+                    break;
+                case "priority":
+                    priority = this.readInt();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new DefaultProperties(require(fade), maxAlpha, transitionSpeed, changeFog, fogColors, renderSunSkyTint, shouldRotate, rotation, priority);
+    }
+
+    private Fade readFade() throws IOException {
+        Integer startFadeIn = null;
+        Integer endFadeIn = null;
+        Integer startFadeOut = null;
+        Integer endFadeOut = null;
+        boolean alwaysOn = false;
+        int dayLength = Fade.DEFAULT_DAY_LENGTH;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "startFadeIn":
+                    startFadeIn = this.readInt();
+                    break;
+                case "endFadeIn":
+                    endFadeIn = this.readInt();
+                    break;
+                case "startFadeOut":
+                    startFadeOut = this.readInt();
+                    break;
+                case "endFadeOut":
+                    endFadeOut = this.readInt();
+                    break;
+                case "alwaysOn":
+                    alwaysOn = this.readBoolean();
+                    break;
+                case "dayLength":
+                    dayLength = this.readInt();
+                    if (dayLength < 1) {
+                        throw new Unsupported();
+                    }
+                    break;
+                default:
+                    // keyframed fades are left to the codec
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new Fade(require(startFadeIn), require(endFadeIn), require(startFadeOut), require(endFadeOut), alwaysOn, ImmutableList.of(), dayLength);
+    }
+
+    private Conditions readConditions() throws IOException {
+        List<ResourceLocation> biomes = ImmutableList.of();
+        List<ResourceLocation> worlds = ImmutableList.of();
+        List<Weather> weathers = ImmutableList.of();
+        List<HeightEntry> heights = ImmutableList.of();
+        EffectCondition effects = EffectCondition.DEFAULT;
+        List<Biome.Category> biomeCategories = ImmutableList.of();
+        List<String> biomeTypes = ImmutableList.of();
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "biomes":
+                    biomes = this.readIdList();
+                    break;
+                case "worlds":
+                    worlds = this.readIdList();
+                    break;
+                case "weather":
+                    ImmutableList.Builder<Weather> weatherBuilder = ImmutableList.builder();
+                    this.reader.beginArray();
+                    while (this.reader.hasNext()) {
+                        weatherBuilder.add(Weather.fromString(this.readString()));
+                    }
+                    this.reader.endArray();
+                    weathers = weatherBuilder.build();
+                    break;
+                case "heights":
+                    ImmutableList.Builder<HeightEntry> heightBuilder = ImmutableList.builder();
+                    this.reader.beginArray();
+                    while (this.reader.hasNext()) {
+                        heightBuilder.add(this.readHeightEntry());
+                    }
+                    this.reader.endArray();
+                    heights = heightBuilder.build();
+                    break;
+                case "effects":
+                    effects = this.readEffectCondition();
+                    break;
+                case "biomeCategories":
+                    ImmutableList.Builder<Biome.Category> categoryBuilder = ImmutableList.builder();
+                    this.reader.beginArray();
+                    while (this.reader.hasNext()) {
+                        Biome.Category category = Biome.Category.byName(this.readString());
+                        if (category == null) {
+                            throw new Unsupported();
+                        }
+                        categoryBuilder.add(category);
+                    }
+                    this.reader.endArray();
+                    biomeCategories = categoryBuilder.build();
+                    break;
+                case "biomeTypes":
+                    ImmutableList.Builder<String> typeBuilder = ImmutableList.builder();
+                    this.reader.beginArray();
+                    while (this.reader.hasNext()) {
+                        typeBuilder.add(this.readString());
+                    }
+                    this.reader.endArray();
+                    biomeTypes = typeBuilder.build();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new Conditions(biomes, worlds, weathers, heights, effects, biomeCategories, biomeTypes);
+    }
+
+    private EffectCondition readEffectCondition() throws IOException {
+        List<ResourceLocation> required = ImmutableList.of();
+        List<ResourceLocation> forbidden = EffectCondition.DEFAULT.getForbidden();
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "required":
+                    required = this.readIdList();
+                    break;
+                case "forbidden":
+                    forbidden = this.readIdList();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new EffectCondition(required, forbidden);
+    }
+
+    private HeightEntry readHeightEntry() throws IOException {
+        Float min = null;
+        Float max = null;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "min":
+                    min = this.readFloat();
+                    break;
+                case "max":
+                    max = this.readFloat();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new HeightEntry(require(min), require(max));
+    }
+
+    private Decorations readDecorations() throws IOException {
+        ResourceLocation sun = Decorations.SUN;
+        ResourceLocation moon = Decorations.MOON_PHASES;
+        boolean showSun = true;
+        boolean showMoon = true;
+        boolean showStars = true;
+        Rotation rotation = Rotation.DEFAULT;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "sun":
+                    sun = this.readId();
+                    break;
+                case "moon":
+                    moon = this.readId();
+                    break;
+                case "showSun":
+                    showSun = this.readBoolean();
+                    break;
+                case "showMoon":
+                    showMoon = this.readBoolean();
+                    break;
+                case "showStars":
+                    showStars = this.readBoolean();
+                    break;
+                case "rotation":
+                    rotation = this.readRotation();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new Decorations(sun, moon, showSun, showMoon, showStars, rotation);
+    }
+
+    private Blend readBlend() throws IOException {
+        String blendType = null;
+        int sFactor = 0;
+        int dFactor = 0;
+        int equation = 0;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "type":
+                    blendType = this.readString();
+                    break;
+                case "sFactor":
+                    sFactor = this.readInt();
+                    break;
+                case "dFactor":
+                    dFactor = this.readInt();
+                    break;
+                case "equation":
+                    equation = this.readInt();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new Blend(blendType, sFactor, dFactor, equation);
+    }
+
+    private Rotation readRotation() throws IOException {
+        Vector3f staticRot = null;
+        Vector3f axisRot = new Vector3f(0F, 0F, 0F);
+        float rotationSpeed = 1F;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "static":
+                    staticRot = this.readVector();
+                    break;
+                case "axis":
+                    axisRot = this.readVector();
+                    break;
+                case "rotationSpeed":
+                    rotationSpeed = this.readFloat();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new Rotation(require(staticRot), axisRot, rotationSpeed);
+    }
+
+    private Vector3f readVector() throws IOException {
+        float[] values = new float[3];
+        int size = 0;
+        this.reader.beginArray();
+        while (this.reader.hasNext()) {
+            float value = this.readFloat();
+            if (size < 3) {
+                values[size] = value;
+            }
+            size++;
+        }
+        this.reader.endArray();
+        if (size < 3) {
+            throw new Unsupported();
+        }
+        return new Vector3f(values[0], values[1], values[2]);
+    }
+
+    private RGBA readRGBA() throws IOException {
+        Float red = null;
+        Float blue = null;
+        Float green = null;
+        float alpha = 1.0F;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "red":
+                    red = this.readClampedFloat();
+                    break;
+                case "blue":
+                    blue = this.readClampedFloat();
+                    break;
+                case "green":
+                    green = this.readClampedFloat();
+                    break;
+                case "alpha":
+                    alpha = this.readClampedFloat();
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new RGBA(require(red), require(blue), require(green), alpha);
+    }
+
+    private Textures readTextures() throws IOException {
+        Texture north = null;
+        Texture south = null;
+        Texture east = null;
+        Texture west = null;
+        Texture top = null;
+        Texture bottom = null;
+
+        this.reader.beginObject();
+        while (this.reader.hasNext()) {
+            switch (this.reader.nextName()) {
+                case "north":
+                    north = new Texture(this.readId());
+                    break;
+                case "south":
+                    south = new Texture(this.readId());
+                    break;
+                case "east":
+                    east = new Texture(this.readId());
+                    break;
+                case "west":
+                    west = new Texture(this.readId());
+                    break;
+                case "top":
+                    top = new Texture(this.readId());
+                    break;
+                case "bottom":
+                    bottom = new Texture(this.readId());
+                    break;
+                default:
+                    throw new Unsupported();
+            }
+        }
+        this.reader.endObject();
+        return new Textures(require(north), require(south), require(east), require(west), require(top), require(bottom));
+    }
+
+    /**
+     * Animation textures are either a list of {@link Textures} objects or a list of single
+     * {@link Texture} ids depending on the skybox type, which may not be known yet.
+     */
+    private void readAnimationTextures() throws IOException {
+        ImmutableList.Builder<Textures> texturesBuilder = ImmutableList.builder();
+        ImmutableList.Builder<Texture> textureBuilder = ImmutableList.builder();
+        boolean sawObject = false;
+        boolean sawString = false;
+
+        this.reader.beginArray();
+        while (this.reader.hasNext()) {
+            if (this.reader.peek() == JsonToken.BEGIN_OBJECT) {
+                texturesBuilder.add(this.readTextures());
+                sawObject = true;
+            } else {
+                textureBuilder.add(new Texture(this.readId()));
+                sawString = true;
+            }
+        }
+        this.reader.endArray();
+
+        if (sawObject && sawString) {
+            throw new Unsupported();
+        }
+        this.animationTextures = sawString ? null : texturesBuilder.build();
+        this.animationTextureList = sawObject ? null : textureBuilder.build();
+    }
+
+    private List<ResourceLocation> readIdList() throws IOException {
+        ImmutableList.Builder<ResourceLocation> builder = ImmutableList.builder();
+        this.reader.beginArray();
+        while (this.reader.hasNext()) {
+            builder.add(this.readId());
+        }
+        this.reader.endArray();
+        return builder.build();
+    }
+
+    private ResourceLocation readId() throws IOException {
+        // throws ResourceLocationException on invalid ids, which makes us fall back
+        return new ResourceLocation(this.readString());
+    }
+
+    private String readString() throws IOException {
+        if (this.reader.peek() != JsonToken.STRING) {
+            throw new Unsupported();
+        }
+        return this.reader.nextString();
+    }
+
+    private boolean readBoolean() throws IOException {
+        if (this.reader.peek() != JsonToken.BOOLEAN) {
+            throw new Unsupported();
+        }
+        return this.reader.nextBoolean();
+    }
+
+    private int readInt() throws IOException {
+        if (this.reader.peek() != JsonToken.NUMBER) {
+            throw new Unsupported();
+        }
+        // only plain integers, anything else is left to the codecs
+        return Integer.parseInt(this.reader.nextString());
+    }
+
+    private float readFloat() throws IOException {
+        if (this.reader.peek() != JsonToken.NUMBER) {
+            throw new Unsupported();
+        }
+        return Float.parseFloat(this.reader.nextString());
+    }
+
+    private float readClampedFloat() throws IOException {
+        return MathHelper.clamp(this.readFloat(), 0.0F, 1.0F);
+    }
+
+    private static <T> T require(@Nullable T value) {
+        if (value == null) {
+            throw new Unsupported();
+        }
+        return value;
+    }
+
+    private static class Unsupported extends RuntimeException {
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -1,35 +1,17 @@
 package vice.customskyboxes.skyboxes;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Ordering;
 import com.mojang.blaze3d.matrix.MatrixStack;
-import com.mojang.blaze3d.platform.GlStateManager;
-import com.mojang.blaze3d.systems.RenderSystem;
-import net.minecraft.client.entity.player.ClientPlayerEntity;
-import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.IRenderTypeBuffer;
-import net.minecraft.client.renderer.WorldVertexBufferUploader;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
-import net.minecraft.client.renderer.vertex.VertexBuffer;
-import net.minecraft.client.world.ClientWorld;
-import net.minecraft.potion.Effect;
-import net.minecraft.potion.EffectInstance;
-import net.minecraft.potion.Effects;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.vector.Matrix4f;
-import net.minecraft.util.math.vector.Vector3f;
-import net.minecraft.util.registry.Registry;
 import net.minecraft.world.biome.Biome;
+import vice.customskyboxes.SkyEnvironment;
 import vice.customskyboxes.SkyboxManager;
 import vice.customskyboxes.mixin.skybox.WorldRendererAccess;
-import vice.customskyboxes.util.Utils;
 import vice.customskyboxes.util.object.*;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
-import net.minecraft.client.Minecraft;
 
 /**
  * All classes that implement {@link AbstractSkybox} should
@@ -51,6 +33,7 @@ public abstract class AbstractSkybox {
     protected RGBA fogColors = RGBA.ZERO;
     protected boolean renderSunSkyColorTint = true;
     protected boolean shouldRotate = false;
+    protected int priority = 0;
     protected List<String> weather = new ArrayList<>();
     protected List<ResourceLocation> biomes = new ArrayList<>();
     protected Decorations decorations = Decorations.DEFAULT;
@@ -59,6 +42,11 @@ public abstract class AbstractSkybox {
      */
     protected List<ResourceLocation> worlds = new ArrayList<>();
     protected List<HeightEntry> heightRanges = Lists.newArrayList();
+    protected EffectCondition effects = EffectCondition.DEFAULT;
+    protected List<Biome.Category> biomeCategories = new ArrayList<>();
+    protected List<String> biomeTypes = new ArrayList<>();
+    private transient CompiledConditions compiledConditions;
+    private transient BiomeCondition biomeCondition;
 
     /**
      * The main render method for a skybox.
@@ -70,7 +58,20 @@ public abstract class AbstractSkybox {
      */
     public abstract void render(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta);
 
+    /**
+     * Draws the parts of the skybox that cover the sun, moon and stars, such as the dark disc
+     * below the horizon. Called right after {@link #render}, except for the bottom skybox,
+     * where the decorations are drawn in between.
+     *
+     * @param worldRendererAccess Access to the worldRenderer as skyboxes often require it.
+     * @param matrices            The current MatrixStack.
+     * @param tickDelta           The current tick delta.
+     */
+    public void renderAfterDecorations(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta) {
+    }
+
     protected AbstractSkybox() {
+        this.compileConditions();
     }
 
     protected AbstractSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations) {
@@ -81,77 +82,30 @@ public abstract class AbstractSkybox {
         this.fogColors = properties.getFogColors();
         this.renderSunSkyColorTint = properties.isRenderSunSkyTint();
         this.shouldRotate = properties.isShouldRotate();
+        this.priority = properties.getPriority();
         this.weather = conditions.getWeathers().stream().map(Weather::toString).distinct().collect(Collectors.toList());
         this.biomes = conditions.getBiomes();
         this.worlds = conditions.getWorlds();
         this.heightRanges = conditions.getHeights();
+        this.effects = conditions.getEffects();
+        this.biomeCategories = conditions.getBiomeCategories();
+        this.biomeTypes = conditions.getBiomeTypes();
         this.decorations = decorations;
+        this.compileConditions();
     }
 
     /**
      * Calculates the alpha value for the current time and conditions and returns it.
      *
+     * @param environment The environment of the current frame.
      * @return The new alpha value.
      */
-    public final float getAlpha() {
+    public final float getAlpha(SkyEnvironment environment) {
         if (!fade.isAlwaysOn()) {
-            int currentTime = (int) Objects.requireNonNull(Minecraft.getInstance().level).getDayTime() % 24000; // modulo so that it's bound to 24000
-            int durationin = Utils.getTicksBetween(this.fade.getStartFadeIn(), this.fade.getEndFadeIn());
-            int durationout = Utils.getTicksBetween(this.fade.getStartFadeOut(), this.fade.getEndFadeOut());
-
-            int startFadeIn = this.fade.getStartFadeIn() % 24000;
-            int endFadeIn = this.fade.getEndFadeIn() % 24000;
-
-            if (endFadeIn < startFadeIn) {
-                endFadeIn += 24000;
-            }
-
-            int startFadeOut = this.fade.getStartFadeOut() % 24000;
-            int endFadeOut = this.fade.getEndFadeOut() % 24000;
-
-            if (startFadeOut < endFadeIn) {
-                startFadeOut += 24000;
-            }
-
-            if (endFadeOut < startFadeOut) {
-                endFadeOut += 24000;
-            }
-
-            int tempInTime = currentTime;
-
-            if (tempInTime < startFadeIn) {
-                tempInTime += 24000;
-            }
-
-            int tempFullTime = currentTime;
-
-            if (tempFullTime < endFadeIn) {
-                tempFullTime += 24000;
-            }
-
-            int tempOutTime = currentTime;
-
-            if (tempOutTime < startFadeOut) {
-                tempOutTime += 24000;
-            }
-
-            float maxPossibleAlpha;
-
-            if (startFadeIn < tempInTime && endFadeIn >= tempInTime) {
-                maxPossibleAlpha = 1f - (((float) (endFadeIn - tempInTime)) / durationin); // fading in
-
-            } else if (endFadeIn < tempFullTime && startFadeOut >= tempFullTime) {
-                maxPossibleAlpha = 1f; // fully faded in
-
-            } else if (startFadeOut < tempOutTime && endFadeOut >= tempOutTime) {
-                maxPossibleAlpha = (float) (endFadeOut - tempOutTime) / durationout; // fading out
-
-            } else {
-                maxPossibleAlpha = 0f; // default not showing
-            }
+            float maxPossibleAlpha = this.fade.getAlphaAt(environment.getDayTime());
 
             maxPossibleAlpha *= maxAlpha;
-            if (checkBiomes() && checkHeights() && checkWeather() && checkEffect()) { // check if environment is invalid
+            if (this.compiledConditions.test(environment)) { // check if environment is invalid
                 if (alpha >= maxPossibleAlpha) {
                     alpha = maxPossibleAlpha;
                 } else {
@@ -190,150 +144,29 @@ public abstract class AbstractSkybox {
     }
 
     /**
-     * @return Whether the current biomes and dimensions are valid for this skybox.
+     * Compiles the conditions of this skybox for evaluation. Called by the constructors, and
+     * again by the {@link LegacyDeserializer} once it has filled in the conditions.
      */
-    protected boolean checkBiomes() {
-        Minecraft client = Minecraft.getInstance();
-        Objects.requireNonNull(client.level);
-        if (worlds.isEmpty()|| worlds.contains(client.level.dimension().location())) {
-            if (biomes.isEmpty()) return true;
-            assert client.player != null;
-            return biomes.contains(client.level.registryAccess().registryOrThrow(Registry.BIOME_REGISTRY).getKey(client.level.getBiome(client.player.blockPosition())));
-        }
-        return false;
-    }
-    
-    /*
-		Check if player has an effect that should prevent skybox from showing
-     */
-    protected boolean checkEffect() {
-    	ClientPlayerEntity player = Minecraft.getInstance().player;
-    	Collection<EffectInstance> activeEffects = player.getActiveEffects();
-    	if (!activeEffects.isEmpty()) {
-    		for (EffectInstance statusEffectInstance : Ordering.natural().reverse().sortedCopy(activeEffects)) {
-                Effect statusEffect = statusEffectInstance.getEffect();
-    			if (statusEffect.equals(Effects.BLINDNESS)) {
-    				return false;
-    			}
-    		}
-    	}
-    	return true;
-    }
-
-    /**
-     * @return Whether the current heights are valid for this skybox.
-     */
-    protected boolean checkHeights() {
-        double playerHeight = Objects.requireNonNull(Minecraft.getInstance().player).getY();
-        boolean inRange = false;
-        for (HeightEntry heightRange : this.heightRanges) {
-            inRange = heightRange.getMin() < playerHeight && heightRange.getMax() > playerHeight;
-            if (inRange) break;
-        }
-        return this.heightRanges.isEmpty() || inRange;
+    protected void compileConditions() {
+        this.biomeCondition = new BiomeCondition(this.biomes, this.biomeCategories, this.biomeTypes);
+        this.compiledConditions = CompiledConditions.compile(this.worlds, this.weather, this.heightRanges, this.effects, this.biomeCondition);
     }
 
     /**
-     * @return Whether the current weather is valid for this skybox.
+     * @return The biome ids, categories and types of this skybox as a single condition.
      */
-    protected boolean checkWeather() {
-        ClientWorld world = Objects.requireNonNull(Minecraft.getInstance().level);
-        ClientPlayerEntity player = Objects.requireNonNull(Minecraft.getInstance().player);
-        Biome.RainType precipitation = world.getBiome(player.blockPosition()).getPrecipitation();
-        if (weather.size() > 0) {
-            if (weather.contains("thunder") && world.isThundering()) {
-                return true;
-            } else if (weather.contains("snow") && world.isRaining() && precipitation == Biome.RainType.SNOW) {
-                return true;
-            } else if (weather.contains("rain") && world.isRaining() && !world.isThundering()) {
-                return true;
-            } else return weather.contains("clear");
-        } else {
-            return true;
-        }
+    public BiomeCondition getBiomeCondition() {
+        return this.biomeCondition;
     }
 
     public abstract SkyboxType<? extends AbstractSkybox> getType();
 
-    public void renderDecorations(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta, BufferBuilder bufferBuilder, float alpha) {
-        if (!SkyboxManager.getInstance().hasRenderedDecorations())
-        {
-            Vector3f rotationStatic = decorations.getRotation().getStatic();
-            Vector3f rotationAxis = decorations.getRotation().getAxis();
-
-            RenderSystem.enableTexture();
-            matrices.pushPose();
-            matrices.mulPose(Vector3f.XP.rotationDegrees(rotationStatic.x()));
-            matrices.mulPose(Vector3f.YP.rotationDegrees(rotationStatic.y()));
-            matrices.mulPose(Vector3f.ZP.rotationDegrees(rotationStatic.z()));
-            ClientWorld world = Minecraft.getInstance().level;
-            assert world != null;
-            RenderSystem.enableTexture();
-            RenderSystem.blendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE, GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ZERO);
-            matrices.mulPose(Vector3f.XP.rotationDegrees(rotationAxis.x()));
-            matrices.mulPose(Vector3f.YP.rotationDegrees(rotationAxis.y()));
-            matrices.mulPose(Vector3f.ZP.rotationDegrees(rotationAxis.z()));
-            matrices.mulPose(Vector3f.YP.rotationDegrees(-90.0F));
-            matrices.mulPose(Vector3f.XP.rotationDegrees(world.getTimeOfDay(tickDelta) * 360.0F * decorations.getRotation().getRotationSpeed()));
-            matrices.mulPose(Vector3f.ZN.rotationDegrees(rotationAxis.z()));
-            matrices.mulPose(Vector3f.YN.rotationDegrees(rotationAxis.y()));
-            matrices.mulPose(Vector3f.XN.rotationDegrees(rotationAxis.x()));
-            float r = 1.0F - world.getRainLevel(tickDelta);
-            // sun
-            RenderSystem.color4f(1.0F, 1.0F, 1.0F, alpha);
-            Matrix4f matrix4f2 = matrices.last().pose();
-            float s = 30.0F;
-            if (decorations.isSunEnabled()) {
-                worldRendererAccess.getTextureManager().bind(this.decorations.getSunTexture());
-                bufferBuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
-                bufferBuilder.vertex(matrix4f2, -s, 100.0F, -s).uv(0.0F, 0.0F).endVertex();
-                bufferBuilder.vertex(matrix4f2, s, 100.0F, -s).uv(1.0F, 0.0F).endVertex();
-                bufferBuilder.vertex(matrix4f2, s, 100.0F, s).uv(1.0F, 1.0F).endVertex();
-                bufferBuilder.vertex(matrix4f2, -s, 100.0F, s).uv(0.0F, 1.0F).endVertex();
-                bufferBuilder.end();
-                WorldVertexBufferUploader.end(bufferBuilder);
-            }
-            // moon
-            s = 20.0F;
-            if (decorations.isMoonEnabled()) {
-                worldRendererAccess.getTextureManager().bind(this.decorations.getMoonTexture());
-                int t = world.getMoonPhase();
-                int u = t % 4;
-                int v = t / 4 % 2;
-                float w = (float) (u) / 4.0F;
-                float o = (float) (v) / 2.0F;
-                float p = (float) (u + 1) / 4.0F;
-                float q = (float) (v + 1) / 2.0F;
-                bufferBuilder.begin(7, DefaultVertexFormats.POSITION_TEX);
-                bufferBuilder.vertex(matrix4f2, -s, -100.0F, s).uv(p, q).endVertex();
-                bufferBuilder.vertex(matrix4f2, s, -100.0F, s).uv(w, q).endVertex();
-                bufferBuilder.vertex(matrix4f2, s, -100.0F, -s).uv(w, o).endVertex();
-                bufferBuilder.vertex(matrix4f2, -s, -100.0F, -s).uv(p, o).endVertex();
-                bufferBuilder.end();
-                WorldVertexBufferUploader.end(bufferBuilder);
-            }
-            // stars
-            if (decorations.isStarsEnabled()) {
-                RenderSystem.disableTexture();
-                float aa = world.getStarBrightness(tickDelta) * r;
-                if (aa > 0.0F) {
-                    RenderSystem.color4f(aa, aa, aa, aa);
-                    worldRendererAccess.getStarBuffer().bind();
-                    worldRendererAccess.getSkyFormat().setupBufferState(0L);
-                    worldRendererAccess.getStarBuffer().draw(matrices.last().pose(), 7);
-                    VertexBuffer.unbind();
-                    worldRendererAccess.getSkyFormat().clearBufferState();
-                }
-            }
-            matrices.mulPose(Vector3f.ZP.rotationDegrees(rotationStatic.z()));
-            matrices.mulPose(Vector3f.YP.rotationDegrees(rotationStatic.y()));
-            matrices.mulPose(Vector3f.XP.rotationDegrees(rotationStatic.x()));
-            RenderSystem.color4f(1.0F, 1.0F, 1.0F, 1.0F);
-            RenderSystem.disableBlend();
-            RenderSystem.enableAlphaTest();
-            RenderSystem.enableFog();
-            matrices.popPose();
-        }
+    /**
+     * Releases the GL resources of this skybox. Called on the render thread when the skybox
+     * is removed from the {@link SkyboxManager}. The skybox may be rendered again later, in
+     * which case it has to recreate them.
+     */
+    public void dispose() {
     }
 
     public Fade getFade() {
@@ -364,6 +197,26 @@ public abstract class AbstractSkybox {
         return this.shouldRotate;
     }
 
+    public int getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Identifies the blend state this skybox renders with. Skyboxes of the same priority are
+     * drawn grouped by this key, so consecutive layers can share GL state.
+     */
+    public String getBlendKey() {
+        return "";
+    }
+
+    /**
+     * Identifies the texture this skybox renders with, used to order skyboxes of the same
+     * priority and blend state.
+     */
+    public String getTextureKey() {
+        return "";
+    }
+
     public Decorations getDecorations() {
         return this.decorations;
     }
@@ -384,6 +237,18 @@ public abstract class AbstractSkybox {
         return this.heightRanges;
     }
 
+    public EffectCondition getEffects() {
+        return this.effects;
+    }
+
+    public List<Biome.Category> getBiomeCategories() {
+        return this.biomeCategories;
+    }
+
+    public List<String> getBiomeTypes() {
+        return this.biomeTypes;
+    }
+
     public DefaultProperties getDefaultProperties() {
         return DefaultProperties.ofSkybox(this);
     }
@@ -31,7 +31,8 @@ public class LegacyDeserializer<T extends AbstractSkybox> extends ForgeRegistryE
     private final BiConsumer<JsonObjectWrapper, AbstractSkybox> deserializer;
 
     private LegacyDeserializer(BiConsumer<JsonObjectWrapper, AbstractSkybox> deserializer, Class<T> clazz) {
-        this.deserializer = deserializer;
+        // the conditions are filled in after construction, so they are compiled again once done
+        this.deserializer = deserializer.andThen((wrapper, skybox) -> skybox.compileConditions());
     }
 
     public BiConsumer<JsonObjectWrapper, AbstractSkybox> getDeserializer() {
@@ -4,18 +4,13 @@ import java.util.Objects;
 
 import com.mojang.blaze3d.matrix.MatrixStack;
 import net.minecraft.client.Minecraft;
-import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.FogRenderer;
-import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.WorldVertexBufferUploader;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.renderer.vertex.VertexBuffer;
 import net.minecraft.client.world.ClientWorld;
-import net.minecraft.util.math.MathHelper;
-import net.minecraft.util.math.vector.Matrix4f;
-import net.minecraft.util.math.vector.Vector3f;
 import org.lwjgl.system.MathUtil;
 import vice.customskyboxes.mixin.skybox.WorldRendererAccess;
+import vice.customskyboxes.render.SkyStateTracker;
+import vice.customskyboxes.render.SunriseFan;
 import vice.customskyboxes.util.object.Conditions;
 import vice.customskyboxes.util.object.Decorations;
 import vice.customskyboxes.util.object.DefaultProperties;
@@ -51,58 +46,36 @@ public class MonoColorSkybox extends AbstractSkybox {
         if (this.alpha > 0) {
             Minecraft client = Minecraft.getInstance();
             ClientWorld world = Objects.requireNonNull(client.level);
-            RenderSystem.disableTexture();
+            SkyStateTracker state = SkyStateTracker.getInstance();
+            state.disableBlend();
+            state.enableAlphaTest();
+            state.disableTexture();
             FogRenderer.levelFogColor();
-            BufferBuilder bufferBuilder = Tessellator.getInstance().getBuilder();
-            RenderSystem.depthMask(false);
-            RenderSystem.enableFog();
+            state.depthMask(false);
+            state.enableFog();
             RenderSystem.color3f(this.color.getRed(), this.color.getGreen(), this.color.getBlue());
             worldRendererAccess.getSkyBuffer().bind();
             worldRendererAccess.getSkyFormat().setupBufferState(0L);
             worldRendererAccess.getSkyBuffer().draw(matrices.last().pose(), 7);
             VertexBuffer.unbind();
             worldRendererAccess.getSkyFormat().clearBufferState();
-            RenderSystem.disableFog();
-            RenderSystem.disableAlphaTest();
-            RenderSystem.enableBlend();
-            RenderSystem.defaultBlendFunc();
-            float[] skyColor = world.effects().getSunriseColor(world.getTimeOfDay(tickDelta), tickDelta);
-            float skySide;
-            float skyColorGreen;
-            float o;
-            float p;
-            float q;
-            if (skyColor != null) {
-                RenderSystem.disableTexture();
-                RenderSystem.shadeModel(7425);
-                matrices.pushPose();
-                matrices.mulPose(Vector3f.XP.rotationDegrees(90.0F));
-                skySide = MathHelper.sin(world.getSunAngle(tickDelta)) < 0.0F ? 180.0F : 0.0F;
-                matrices.mulPose(Vector3f.ZP.rotationDegrees(skySide));
-                matrices.mulPose(Vector3f.ZP.rotationDegrees(90.0F));
-                float skyColorRed = skyColor[0];
-                skyColorGreen = skyColor[1];
-                float skyColorBlue = skyColor[2];
-                Matrix4f matrix4f = matrices.last().pose();
-                bufferBuilder.begin(6, DefaultVertexFormats.POSITION_COLOR);
-                bufferBuilder.vertex(matrix4f, 0.0F, 100.0F, 0.0F).color(skyColorRed, skyColorGreen, skyColorBlue, skyColor[3]).endVertex();
-
-                for (int n = 0; n <= 16; ++n) {
-                    o = (float) n * 6.2831855F / 16.0F;
-                    p = MathHelper.sin(o);
-                    q = MathHelper.cos(o);
-                    bufferBuilder.vertex(matrix4f, p * 120.0F, q * 120.0F, -q * 40.0F * skyColor[3]).color(skyColor[0], skyColor[1], skyColor[2], 0.0F).endVertex();
-                }
-
-                bufferBuilder.end();
-                WorldVertexBufferUploader.end(bufferBuilder);
-                matrices.popPose();
-                RenderSystem.shadeModel(7424);
-            }
+            state.disableFog();
+            state.disableAlphaTest();
+            state.enableBlend();
+            state.defaultBlendFunc();
 
-            this.renderDecorations(worldRendererAccess, matrices, tickDelta, bufferBuilder, this.alpha);
+            SunriseFan.getInstance().render(world, matrices, tickDelta);
+        }
+    }
 
-            RenderSystem.disableTexture();
+    @Override
+    public void renderAfterDecorations(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta) {
+        if (this.alpha > 0) {
+            Minecraft client = Minecraft.getInstance();
+            ClientWorld world = Objects.requireNonNull(client.level);
+            SkyStateTracker state = SkyStateTracker.getInstance();
+            // drawn over the lower half of the sky, and with it the sun and moon once they set
+            state.disableTexture();
             RenderSystem.color3f(0.0F, 0.0F, 0.0F);
             //noinspection ConstantConditions
             double d = client.player.getEyePosition(tickDelta).y - world.getLevelData().getHorizonHeight();
@@ -123,9 +96,9 @@ public class MonoColorSkybox extends AbstractSkybox {
                 RenderSystem.color3f(this.color.getRed(), this.color.getBlue(), this.color.getGreen());
             }
 
-            RenderSystem.enableTexture();
-            RenderSystem.depthMask(true);
-            RenderSystem.disableFog();
+            state.enableTexture();
+            state.depthMask(true);
+            state.disableFog();
         }
     }
 
@@ -1,5 +1,6 @@
 package vice.customskyboxes.skyboxes;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -16,6 +17,7 @@ import vice.customskyboxes.FabricSkyBoxesClient;
 import vice.customskyboxes.skyboxes.textured.AnimatedSquareTexturedSkybox;
 import vice.customskyboxes.skyboxes.textured.SingleSpriteAnimatedSquareTexturedSkybox;
 import vice.customskyboxes.skyboxes.textured.SingleSpriteSquareTexturedSkybox;
+import vice.customskyboxes.skyboxes.textured.SpriteSheetAnimatedSquareTexturedSkybox;
 import vice.customskyboxes.skyboxes.textured.SquareTexturedSkybox;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -30,6 +32,7 @@ public class SkyboxType<T extends AbstractSkybox> extends ForgeRegistryEntry<Sky
     public static final SkyboxType<SingleSpriteSquareTexturedSkybox> SINGLE_SPRITE_SQUARE_TEXTURED_SKYBOX;
     public static final SkyboxType<AnimatedSquareTexturedSkybox> ANIMATED_SQUARE_TEXTURED_SKYBOX;
     public static final SkyboxType<SingleSpriteAnimatedSquareTexturedSkybox> SINGLE_SPRITE_ANIMATED_SQUARE_TEXTURED_SKYBOX;
+    public static final SkyboxType<SpriteSheetAnimatedSquareTexturedSkybox> SPRITE_SHEET_ANIMATED_SQUARE_TEXTURED_SKYBOX;
     public static final Codec<ResourceLocation> SKYBOX_ID_CODEC;
 
     private final BiMap<Integer, Codec<T>> codecBiMap;
@@ -78,6 +81,31 @@ public class SkyboxType<T extends AbstractSkybox> extends ForgeRegistryEntry<Sky
         return Objects.requireNonNull(this.codecBiMap.get(schemaVersion), String.format("Unsupported schema version '%d' for skybox type %s", schemaVersion, this.name));
     }
 
+    /**
+     * @return Every codec of this type, by schema version.
+     */
+    public Map<Integer, Codec<T>> getCodecs() {
+        return this.codecBiMap;
+    }
+
+    /**
+     * @return The highest schema version this type has a codec for.
+     */
+    public int getLatestSchemaVersion() {
+        return this.codecBiMap.keySet().stream().mapToInt(Integer::intValue).max().orElseThrow(() -> new IllegalStateException("Skybox type " + this.name + " has no codecs"));
+    }
+
+    /**
+     * Converts a skybox type name as written in skybox files to its registry id.
+     * Names without a namespace belong to this mod.
+     */
+    public static ResourceLocation parseSkyboxId(String s) {
+        if (!s.contains(":")) {
+            return new ResourceLocation(FabricSkyBoxesClient.MODID, s.replace('-', '_'));
+        }
+        return new ResourceLocation(s.replace('-', '_'));
+    }
+
     private static <T> Class<T> c(Class<?> cls) { return (Class<T>)cls; }
 
     static {
@@ -114,12 +142,11 @@ public class SkyboxType<T extends AbstractSkybox> extends ForgeRegistryEntry<Sky
                 .add(2, SingleSpriteAnimatedSquareTexturedSkybox.CODEC)
                 .buildAndRegister(FabricSkyBoxesClient.MODID);
 
-        SKYBOX_ID_CODEC = Codec.STRING.xmap((s) -> {
-            if (!s.contains(":")) {
-                return new ResourceLocation(FabricSkyBoxesClient.MODID, s.replace('-', '_'));
-            }
-            return new ResourceLocation(s.replace('-', '_'));
-        }, (id) -> {
+        SPRITE_SHEET_ANIMATED_SQUARE_TEXTURED_SKYBOX = Builder.create(SpriteSheetAnimatedSquareTexturedSkybox.class, "sprite-sheet-animated-square-textured")
+                .add(2, SpriteSheetAnimatedSquareTexturedSkybox.CODEC)
+                .buildAndRegister(FabricSkyBoxesClient.MODID);
+
+        SKYBOX_ID_CODEC = Codec.STRING.xmap(SkyboxType::parseSkyboxId, (id) -> {
             if (id.getNamespace().equals(FabricSkyBoxesClient.MODID)) {
                 return id.getPath().replace('_', '-');
             }
@@ -3,12 +3,26 @@ package vice.customskyboxes.skyboxes.textured;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.minecraft.client.Minecraft;
+import vice.customskyboxes.FabricSkyBoxesClient;
+import vice.customskyboxes.SkyEnvironment;
+import vice.customskyboxes.SkyboxManager;
 import vice.customskyboxes.mixin.skybox.WorldRendererAccess;
+import vice.customskyboxes.render.AnimationClock;
+import vice.customskyboxes.render.AnimationFrameCache;
 import vice.customskyboxes.skyboxes.AbstractSkybox;
 import vice.customskyboxes.skyboxes.SkyboxType;
 import vice.customskyboxes.util.object.*;
 import java.util.List;
 
+/**
+ * A skybox that cycles through a list of frames, each with its own six face textures. The
+ * frames are loaded and uploaded through an {@link AnimationFrameCache} within a memory budget.
+ * <p>
+ * Only {@link RenderMode#FACES} is supported. The frame cache uploads decoded frames as
+ * dynamic textures, which atlases and cube maps can't be built from, and building one per
+ * frame would bypass its budget. Other render modes fall back to faces with a warning.
+ */
 public class AnimatedSquareTexturedSkybox extends SquareTexturedSkybox {
     public static final Codec<AnimatedSquareTexturedSkybox> CODEC = RecordCodecBuilder.create(instance -> instance.group(
             DefaultProperties.CODEC.fieldOf("properties").forGetter(AbstractSkybox::getDefaultProperties),
@@ -16,13 +30,18 @@ public class AnimatedSquareTexturedSkybox extends SquareTexturedSkybox {
             Decorations.CODEC.optionalFieldOf("decorations", Decorations.DEFAULT).forGetter(AbstractSkybox::getDecorations),
             Blend.CODEC.optionalFieldOf("blend", Blend.DEFAULT).forGetter(TexturedSkybox::getBlend),
             Textures.CODEC.listOf().fieldOf("animationTextures").forGetter(AnimatedSquareTexturedSkybox::getAnimationTextures),
-            Codec.FLOAT.fieldOf("fps").forGetter(AnimatedSquareTexturedSkybox::getFps)
+            Codec.FLOAT.fieldOf("fps").forGetter(AnimatedSquareTexturedSkybox::getFps),
+            Codec.intRange(1, Integer.MAX_VALUE).optionalFieldOf("frameCacheMegabytes", DEFAULT_FRAME_CACHE_MEGABYTES).forGetter(AnimatedSquareTexturedSkybox::getFrameCacheMegabytes),
+            Codec.BOOL.optionalFieldOf("syncToDayTime", false).forGetter(AnimatedSquareTexturedSkybox::isSyncToDayTime),
+            RenderMode.CODEC.optionalFieldOf("renderMode", RenderMode.FACES).forGetter(SquareTexturedSkybox::getRenderMode)
     ).apply(instance, AnimatedSquareTexturedSkybox::new));
+    public static final int DEFAULT_FRAME_CACHE_MEGABYTES = 256;
     private final List<Textures> animationTextures;
     private final float fps;
-    private final long frameTimeMillis;
-    private int count = 0;
-    private long lastTime = 0L;
+    private final int frameCacheMegabytes;
+    private final boolean syncToDayTime;
+    private final AnimationClock clock;
+    private AnimationFrameCache frameCache;
 
     @Override
     public SkyboxType<? extends AbstractSkybox> getType() {
@@ -30,32 +49,59 @@ public class AnimatedSquareTexturedSkybox extends SquareTexturedSkybox {
     }
 
     public AnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, List<Textures> animationTextures, float fps) {
-        super(properties, conditions, decorations, blend, null);
+        this(properties, conditions, decorations, blend, animationTextures, fps, DEFAULT_FRAME_CACHE_MEGABYTES, false);
+    }
+
+    public AnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, List<Textures> animationTextures, float fps, int frameCacheMegabytes, boolean syncToDayTime) {
+        this(properties, conditions, decorations, blend, animationTextures, fps, frameCacheMegabytes, syncToDayTime, RenderMode.FACES);
+    }
+
+    public AnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, List<Textures> animationTextures, float fps, int frameCacheMegabytes, boolean syncToDayTime, RenderMode renderMode) {
+        super(properties, conditions, decorations, blend, null, framesRenderMode(renderMode, animationTextures));
         this.animationTextures = animationTextures;
         this.fps = fps;
-        if (fps > 0 && fps <= 360) {
-            this.frameTimeMillis = (long) (1000F / fps);
-        } else {
-            this.frameTimeMillis = 16L;
+        this.frameCacheMegabytes = frameCacheMegabytes;
+        this.syncToDayTime = syncToDayTime;
+        this.clock = new AnimationClock(fps, syncToDayTime);
+    }
+
+    private static RenderMode framesRenderMode(RenderMode renderMode, List<Textures> animationTextures) {
+        if (renderMode != RenderMode.FACES) {
+            FabricSkyBoxesClient.getLogger().warn("Animated skyboxes are drawn in faces mode, ignoring render mode " + renderMode
+                    + (animationTextures.isEmpty() ? "" : " of " + animationTextures.get(0).getNorth().getTextureId()));
         }
+        return RenderMode.FACES;
     }
 
     @Override
     public void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta) {
-        if (this.lastTime == 0L) this.lastTime = System.currentTimeMillis();
-        this.textures = this.getAnimationTextures().get(this.count);
+        if (this.getAnimationTextures().isEmpty()) {
+            return;
+        }
+        SkyEnvironment environment = SkyboxManager.getInstance().getEnvironment();
+        int count = this.clock.getFrame(this.getAnimationTextures().size(), System.nanoTime(), SkyboxManager.getInstance().getFrame(), this.alpha, environment.getDayTime(), tickDelta);
+        if (this.frameCache == null) {
+            this.frameCache = new AnimationFrameCache(this.getAnimationTextures(), this.frameCacheMegabytes * 1024L * 1024L);
+        }
+        Textures frame = this.frameCache.get(Minecraft.getInstance().getResourceManager(), worldRendererAccess.getTextureManager(), count);
+        // nothing to show until the first frame is loaded
+        if (frame != null) {
+            this.textures = frame;
+            super.renderSkybox(worldRendererAccess, matrices, tickDelta);
+        }
+    }
 
-        super.renderSkybox(worldRendererAccess, matrices, tickDelta);
+    @Override
+    public String getTextureKey() {
+        return this.animationTextures.isEmpty() ? "" : this.animationTextures.get(0).getNorth().getTextureId().toString();
+    }
 
-        if (System.currentTimeMillis() >= (this.lastTime + this.frameTimeMillis)) {
-            if (this.count < this.getAnimationTextures().size()) {
-                if (this.count + 1 == this.getAnimationTextures().size()) {
-                    this.count = 0;
-                } else {
-                    this.count++;
-                }
-            }
-            this.lastTime = System.currentTimeMillis();
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (this.frameCache != null) {
+            this.frameCache.close(Minecraft.getInstance().getTextureManager());
+            this.frameCache = null;
         }
     }
 
@@ -66,4 +112,12 @@ public class AnimatedSquareTexturedSkybox extends SquareTexturedSkybox {
     public float getFps() {
         return this.fps;
     }
+
+    public int getFrameCacheMegabytes() {
+        return this.frameCacheMegabytes;
+    }
+
+    public boolean isSyncToDayTime() {
+        return this.syncToDayTime;
+    }
 }
@@ -16,24 +16,31 @@ public class SingleSpriteAnimatedSquareTexturedSkybox extends AnimatedSquareText
 			Decorations.CODEC.optionalFieldOf("decorations", Decorations.DEFAULT).forGetter(AbstractSkybox::getDecorations),
 			Blend.CODEC.optionalFieldOf("blend", Blend.DEFAULT).forGetter(TexturedSkybox::getBlend),
 			Texture.CODEC.listOf().fieldOf("animationTextures").forGetter(SingleSpriteAnimatedSquareTexturedSkybox::getAnimationTextureList),
-			Codec.FLOAT.fieldOf("fps").forGetter(SingleSpriteAnimatedSquareTexturedSkybox::getFps)
+			Codec.FLOAT.fieldOf("fps").forGetter(SingleSpriteAnimatedSquareTexturedSkybox::getFps),
+			Codec.intRange(1, Integer.MAX_VALUE).optionalFieldOf("frameCacheMegabytes", DEFAULT_FRAME_CACHE_MEGABYTES).forGetter(SingleSpriteAnimatedSquareTexturedSkybox::getFrameCacheMegabytes),
+			Codec.BOOL.optionalFieldOf("syncToDayTime", false).forGetter(SingleSpriteAnimatedSquareTexturedSkybox::isSyncToDayTime),
+			RenderMode.CODEC.optionalFieldOf("renderMode", RenderMode.FACES).forGetter(SquareTexturedSkybox::getRenderMode)
 	).apply(instance, SingleSpriteAnimatedSquareTexturedSkybox::new));
 
 	public SingleSpriteAnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, List<Texture> animationTextures, float fps) {
+		this(properties, conditions, decorations, blend, animationTextures, fps, DEFAULT_FRAME_CACHE_MEGABYTES, false);
+	}
+
+	public SingleSpriteAnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, List<Texture> animationTextures, float fps, int frameCacheMegabytes, boolean syncToDayTime) {
+		this(properties, conditions, decorations, blend, animationTextures, fps, frameCacheMegabytes, syncToDayTime, RenderMode.FACES);
+	}
+
+	public SingleSpriteAnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, List<Texture> animationTextures, float fps, int frameCacheMegabytes, boolean syncToDayTime, RenderMode renderMode) {
 		super(
 				properties,
 				conditions,
 				decorations,
 				blend,
-				animationTextures.stream().map(texture -> new Textures(
-						texture.withUV(1.0F / 3.0F, 1.0F / 2.0F, 2.0F / 3.0F, 1),
-						texture.withUV(2.0F / 3.0F, 0, 1, 1.0F / 2.0F),
-						texture.withUV(2.0F / 3.0F, 1.0F / 2.0F, 1, 1),
-						texture.withUV(0, 1.0F / 2.0F, 1.0F / 3.0F, 1),
-						texture.withUV(1.0F / 3.0F, 0, 2.0F / 3.0F, 1.0F / 2.0F),
-						texture.withUV(0, 0, 1.0F / 3.0F, 1.0F / 2.0F)
-				)).collect(Collectors.toList()),
-				fps
+				animationTextures.stream().map(texture -> SingleSpriteSquareTexturedSkybox.spriteFaces(texture, 0, 0, 1, 1, 0)).collect(Collectors.toList()),
+				fps,
+				frameCacheMegabytes,
+				syncToDayTime,
+				renderMode
 		);
 	}
 
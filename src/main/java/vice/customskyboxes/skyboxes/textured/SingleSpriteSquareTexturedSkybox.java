@@ -2,7 +2,6 @@ package vice.customskyboxes.skyboxes.textured;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
-import net.minecraft.util.Util;
 import vice.customskyboxes.skyboxes.AbstractSkybox;
 import vice.customskyboxes.skyboxes.SkyboxType;
 import vice.customskyboxes.util.object.*;
@@ -13,22 +12,56 @@ public class SingleSpriteSquareTexturedSkybox extends SquareTexturedSkybox {
 			Conditions.CODEC.optionalFieldOf("conditions", Conditions.NO_CONDITIONS).forGetter(AbstractSkybox::getConditions),
 			Decorations.CODEC.optionalFieldOf("decorations", Decorations.DEFAULT).forGetter(AbstractSkybox::getDecorations),
 			Blend.CODEC.optionalFieldOf("blend", Blend.DEFAULT).forGetter(TexturedSkybox::getBlend),
-			Texture.CODEC.fieldOf("texture").forGetter(SingleSpriteSquareTexturedSkybox::getTexture)
+			Texture.CODEC.fieldOf("texture").forGetter(SingleSpriteSquareTexturedSkybox::getTexture),
+			RenderMode.CODEC.optionalFieldOf("renderMode", RenderMode.FACES).forGetter(SquareTexturedSkybox::getRenderMode)
 	).apply(instance, SingleSpriteSquareTexturedSkybox::new));
+	/**
+	 * How far the faces are moved inwards from the edges of their cells when drawn as quads,
+	 * relative to the size of the sprite, so filtering doesn't pick up the neighbouring faces.
+	 * Cube maps sample every face within its own cell and need no inset.
+	 */
+	static final float FACE_INSET = 0.005F;
 	protected Texture texture;
 
 	public SingleSpriteSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, Texture texture) {
-		super(properties, conditions, decorations, blend, Util.make(() -> new Textures(
-				texture.withUV(1.0F / 3.0F + 0.005F, 1.0F / 2.0F + 0.005F, 2.0F / 3.0F - 0.005F, 1 - 0.005F),
-				texture.withUV(2.0F / 3.0F + 0.005F, 0 + 0.005F, 1 - 0.005F, 1.0F / 2.0F - 0.005F),
-				texture.withUV(2.0F / 3.0F + 0.005F, 1.0F / 2.0F + 0.005F, 1 - 0.005F, 1 - 0.005F),
-				texture.withUV(0 + 0.005F, 1.0F / 2.0F + 0.005F, 1.0F / 3.0F - 0.005F, 1 - 0.005F),
-				texture.withUV(1.0F / 3.0F + 0.005F, 0 + 0.005F, 2.0F / 3.0F - 0.005F, 1.0F / 2.0F - 0.005F),
-				texture.withUV(0 + 0.005F, 0 + 0.005F, 1.0F / 3.0F - 0.005F, 1.0F / 2.0F - 0.005F)
-		)));
+		this(properties, conditions, decorations, blend, texture, RenderMode.FACES);
+	}
+
+	public SingleSpriteSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, Texture texture, RenderMode renderMode) {
+		super(properties, conditions, decorations, blend, spriteFaces(texture, 0, 0, 1, 1, renderMode == RenderMode.CUBEMAP ? 0 : FACE_INSET), renderMode);
 		this.texture = texture;
 	}
 
+	/**
+	 * Lays out the faces of a sprite within a cell of its texture. The upper half of the sprite
+	 * holds the bottom, top and south faces, the lower half the west, north and east faces.
+	 *
+	 * @param minU   The left edge of the cell.
+	 * @param minV   The top edge of the cell.
+	 * @param width  The width of the cell.
+	 * @param height The height of the cell.
+	 * @param inset  How far to move every face inwards, relative to the size of the cell.
+	 */
+	static Textures spriteFaces(Texture texture, float minU, float minV, float width, float height, float inset) {
+		return new Textures(
+				spriteFace(texture, minU, minV, width, height, inset, 1, 1),
+				spriteFace(texture, minU, minV, width, height, inset, 2, 0),
+				spriteFace(texture, minU, minV, width, height, inset, 2, 1),
+				spriteFace(texture, minU, minV, width, height, inset, 0, 1),
+				spriteFace(texture, minU, minV, width, height, inset, 1, 0),
+				spriteFace(texture, minU, minV, width, height, inset, 0, 0)
+		);
+	}
+
+	private static Texture spriteFace(Texture texture, float minU, float minV, float width, float height, float inset, int column, int row) {
+		return texture.withUV(
+				minU + width * (column / 3.0F + inset),
+				minV + height * (row / 2.0F + inset),
+				minU + width * ((column + 1) / 3.0F - inset),
+				minV + height * ((row + 1) / 2.0F - inset)
+		);
+	}
+
 	@Override
 	public SkyboxType<? extends AbstractSkybox> getType() {
 		return SkyboxType.SINGLE_SPRITE_SQUARE_TEXTURED_SKYBOX;
@@ -0,0 +1,131 @@
+package vice.customskyboxes.skyboxes.textured;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import org.lwjgl.opengl.GL11;
+import vice.customskyboxes.FabricSkyBoxesClient;
+import vice.customskyboxes.SkyEnvironment;
+import vice.customskyboxes.SkyboxManager;
+import vice.customskyboxes.mixin.skybox.WorldRendererAccess;
+import vice.customskyboxes.render.AnimationClock;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.skyboxes.SkyboxType;
+import vice.customskyboxes.util.object.*;
+
+/**
+ * An animated skybox whose frames are laid out as a grid in a single sprite sheet, each frame
+ * in the layout of {@link SingleSpriteSquareTexturedSkybox}. Frames are numbered from left to
+ * right, then top to bottom.
+ * <p>
+ * The cube is built for the first frame, other frames are shown by offsetting the texture
+ * coordinates with the texture matrix, so changing frames never binds another texture.
+ * <p>
+ * Cube maps are looked up by direction, which the texture matrix can't offset, and one cube
+ * map per frame would take far too much memory, so {@link RenderMode#CUBEMAP} falls back to
+ * faces with a warning. {@link RenderMode#ATLAS} is accepted, but changes nothing, as all faces
+ * already share the sheet.
+ */
+public class SpriteSheetAnimatedSquareTexturedSkybox extends SquareTexturedSkybox {
+	public static final Codec<SpriteSheetAnimatedSquareTexturedSkybox> CODEC = RecordCodecBuilder.<SpriteSheetAnimatedSquareTexturedSkybox>create(instance -> instance.group(
+			DefaultProperties.CODEC.fieldOf("properties").forGetter(AbstractSkybox::getDefaultProperties),
+			Conditions.CODEC.optionalFieldOf("conditions", Conditions.NO_CONDITIONS).forGetter(AbstractSkybox::getConditions),
+			Decorations.CODEC.optionalFieldOf("decorations", Decorations.DEFAULT).forGetter(AbstractSkybox::getDecorations),
+			Blend.CODEC.optionalFieldOf("blend", Blend.DEFAULT).forGetter(TexturedSkybox::getBlend),
+			Texture.CODEC.fieldOf("texture").forGetter(SpriteSheetAnimatedSquareTexturedSkybox::getTexture),
+			Codec.intRange(1, Integer.MAX_VALUE).fieldOf("columns").forGetter(SpriteSheetAnimatedSquareTexturedSkybox::getColumns),
+			Codec.intRange(1, Integer.MAX_VALUE).fieldOf("rows").forGetter(SpriteSheetAnimatedSquareTexturedSkybox::getRows),
+			Codec.intRange(1, Integer.MAX_VALUE).fieldOf("frameCount").forGetter(SpriteSheetAnimatedSquareTexturedSkybox::getFrameCount),
+			Codec.FLOAT.fieldOf("fps").forGetter(SpriteSheetAnimatedSquareTexturedSkybox::getFps),
+			Codec.BOOL.optionalFieldOf("syncToDayTime", false).forGetter(SpriteSheetAnimatedSquareTexturedSkybox::isSyncToDayTime),
+			RenderMode.CODEC.optionalFieldOf("renderMode", RenderMode.FACES).forGetter(SquareTexturedSkybox::getRenderMode)
+	).apply(instance, SpriteSheetAnimatedSquareTexturedSkybox::new)).flatXmap(SpriteSheetAnimatedSquareTexturedSkybox::validate, SpriteSheetAnimatedSquareTexturedSkybox::validate);
+	private final Texture texture;
+	private final int columns;
+	private final int rows;
+	private final int frameCount;
+	private final float fps;
+	private final boolean syncToDayTime;
+	private final AnimationClock clock;
+
+	public SpriteSheetAnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, Texture texture, int columns, int rows, int frameCount, float fps, boolean syncToDayTime) {
+		this(properties, conditions, decorations, blend, texture, columns, rows, frameCount, fps, syncToDayTime, RenderMode.FACES);
+	}
+
+	public SpriteSheetAnimatedSquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, Texture texture, int columns, int rows, int frameCount, float fps, boolean syncToDayTime, RenderMode renderMode) {
+		super(properties, conditions, decorations, blend, SingleSpriteSquareTexturedSkybox.spriteFaces(texture, 0, 0, 1.0F / columns, 1.0F / rows, SingleSpriteSquareTexturedSkybox.FACE_INSET), sheetRenderMode(renderMode, texture));
+		this.texture = texture;
+		this.columns = columns;
+		this.rows = rows;
+		this.frameCount = frameCount;
+		this.fps = fps;
+		this.syncToDayTime = syncToDayTime;
+		this.clock = new AnimationClock(fps, syncToDayTime);
+	}
+
+	private static RenderMode sheetRenderMode(RenderMode renderMode, Texture texture) {
+		if (renderMode == RenderMode.CUBEMAP) {
+			FabricSkyBoxesClient.getLogger().warn("Sprite sheet skyboxes can't be drawn as cube maps, drawing the faces of " + texture.getTextureId() + " instead");
+			return RenderMode.FACES;
+		}
+		return renderMode;
+	}
+
+	/**
+	 * Rejects sheets with more frames than cells.
+	 */
+	private static DataResult<SpriteSheetAnimatedSquareTexturedSkybox> validate(SpriteSheetAnimatedSquareTexturedSkybox skybox) {
+		if ((long) skybox.columns * skybox.rows < skybox.frameCount) {
+			return DataResult.error("Frame count " + skybox.frameCount + " exceeds the " + skybox.columns + "x" + skybox.rows + " cells of the sprite sheet");
+		}
+		return DataResult.success(skybox);
+	}
+
+	@Override
+	public SkyboxType<? extends AbstractSkybox> getType() {
+		return SkyboxType.SPRITE_SHEET_ANIMATED_SQUARE_TEXTURED_SKYBOX;
+	}
+
+	@Override
+	public void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta) {
+		SkyEnvironment environment = SkyboxManager.getInstance().getEnvironment();
+		int frame = this.clock.getFrame(this.frameCount, System.nanoTime(), SkyboxManager.getInstance().getFrame(), this.alpha, environment.getDayTime(), tickDelta);
+
+		RenderSystem.matrixMode(GL11.GL_TEXTURE);
+		RenderSystem.pushMatrix();
+		RenderSystem.translatef((float) (frame % this.columns) / this.columns, (float) (frame / this.columns) / this.rows, 0.0F);
+		RenderSystem.matrixMode(GL11.GL_MODELVIEW);
+
+		super.renderSkybox(worldRendererAccess, matrices, tickDelta);
+
+		RenderSystem.matrixMode(GL11.GL_TEXTURE);
+		RenderSystem.popMatrix();
+		RenderSystem.matrixMode(GL11.GL_MODELVIEW);
+	}
+
+	public Texture getTexture() {
+		return this.texture;
+	}
+
+	public int getColumns() {
+		return this.columns;
+	}
+
+	public int getRows() {
+		return this.rows;
+	}
+
+	public int getFrameCount() {
+		return this.frameCount;
+	}
+
+	public float getFps() {
+		return this.fps;
+	}
+
+	public boolean isSyncToDayTime() {
+		return this.syncToDayTime;
+	}
+}
@@ -1,18 +1,24 @@
 package vice.customskyboxes.skyboxes.textured;
 
 import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
-import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
-import net.minecraft.util.math.vector.Matrix4f;
-import net.minecraft.util.math.vector.Vector3f;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.TextureManager;
 import vice.customskyboxes.mixin.skybox.WorldRendererAccess;
+import vice.customskyboxes.render.SkyboxAtlas;
+import vice.customskyboxes.render.SkyboxCubeMesh;
+import vice.customskyboxes.render.SkyboxCubemap;
 import vice.customskyboxes.skyboxes.AbstractSkybox;
 import vice.customskyboxes.skyboxes.SkyboxType;
 import vice.customskyboxes.util.object.*;
-import net.minecraft.client.renderer.texture.TextureManager;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class SquareTexturedSkybox extends TexturedSkybox
 {
@@ -21,17 +27,42 @@ public class SquareTexturedSkybox extends TexturedSkybox
             Conditions.CODEC.optionalFieldOf("conditions", Conditions.NO_CONDITIONS).forGetter(AbstractSkybox::getConditions),
             Decorations.CODEC.optionalFieldOf("decorations", Decorations.DEFAULT).forGetter(AbstractSkybox::getDecorations),
             Blend.CODEC.optionalFieldOf("blend", Blend.DEFAULT).forGetter(TexturedSkybox::getBlend),
-            Textures.CODEC.fieldOf("textures").forGetter(s -> s.textures)
+            Textures.CODEC.fieldOf("textures").forGetter(s -> s.textures),
+            RenderMode.CODEC.optionalFieldOf("renderMode", RenderMode.FACES).forGetter(SquareTexturedSkybox::getRenderMode)
     ).apply(instance, SquareTexturedSkybox::new));
 
     public Textures textures;
+    protected RenderMode renderMode = RenderMode.FACES;
+
+    /**
+     * The meshes built for this skybox, by texture coordinates.
+     */
+    private final Map<List<Float>, SkyboxCubeMesh> meshes = new HashMap<>();
+    /**
+     * The atlases built for this skybox, by the textures they were built from. Null values
+     * stand for textures that could not be packed.
+     */
+    private final Map<Textures, SkyboxAtlas> atlases = new IdentityHashMap<>();
+    /**
+     * The cube maps built for this skybox, like {@link #atlases}.
+     */
+    private final Map<Textures, SkyboxCubemap> cubemaps = new IdentityHashMap<>();
+    private Textures meshTextures;
+    private Textures drawTextures;
+    private SkyboxCubeMesh mesh;
+    private SkyboxCubemap cubemap;
 
     public SquareTexturedSkybox() {
     }
 
     public SquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, Textures textures) {
+        this(properties, conditions, decorations, blend, textures, RenderMode.FACES);
+    }
+
+    public SquareTexturedSkybox(DefaultProperties properties, Conditions conditions, Decorations decorations, Blend blend, Textures textures, RenderMode renderMode) {
         super(properties, conditions, decorations, blend);
         this.textures = textures;
+        this.renderMode = renderMode;
     }
 
     @Override
@@ -39,48 +70,88 @@ public class SquareTexturedSkybox extends TexturedSkybox
         return SkyboxType.SQUARE_TEXTURED_SKYBOX;
     }
 
+    @Override
+    public String getTextureKey() {
+        return this.textures == null ? "" : this.textures.getNorth().getTextureId().toString();
+    }
+
     @Override
     public void renderSkybox(WorldRendererAccess worldRendererAccess, MatrixStack matrices, float tickDelta) {
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder bufferBuilder = tessellator.getBuilder();
         TextureManager textureManager = worldRendererAccess.getTextureManager();
+        if (this.textures != this.meshTextures) {
+            this.cubemap = this.renderMode == RenderMode.CUBEMAP ? this.getCubemap(this.textures) : null;
+            this.drawTextures = this.renderMode == RenderMode.ATLAS ? this.getAtlasTextures(textureManager, this.textures) : this.textures;
+            // animated skyboxes switch between textures, which mostly share their coordinates,
+            // and cube maps only use the positions of the mesh
+            if (this.cubemap == null || this.mesh == null) {
+                this.mesh = this.meshes.computeIfAbsent(SkyboxCubeMesh.uvKey(this.drawTextures), SkyboxCubeMesh::new);
+            }
+            this.meshTextures = this.textures;
+        }
 
-        for (int i = 0; i < 6; ++i) {
-            // 0 = bottom
-            // 1 = north
-            // 2 = south
-            // 3 = top
-            // 4 = east
-            // 5 = west
-            Texture tex = this.textures.byId(i);
-            matrices.pushPose();
-
-            textureManager.bind(tex.getTextureId());
-
-            if (i == 1) {
-                matrices.mulPose(Vector3f.XP.rotationDegrees(90.0F));
-            } else if (i == 2) {
-                matrices.mulPose(Vector3f.XP.rotationDegrees(-90.0F));
-                matrices.mulPose(Vector3f.YP.rotationDegrees(180.0F));
-            } else if (i == 3) {
-                matrices.mulPose(Vector3f.XP.rotationDegrees(180.0F));
-                matrices.mulPose(Vector3f.YP.rotationDegrees(90.0F));
-            } else if (i == 4) {
-                matrices.mulPose(Vector3f.ZP.rotationDegrees(90.0F));
-                matrices.mulPose(Vector3f.YP.rotationDegrees(-90.0F));
-            } else if (i == 5) {
-                matrices.mulPose(Vector3f.ZP.rotationDegrees(-90.0F));
-                matrices.mulPose(Vector3f.YP.rotationDegrees(90.0F));
+        RenderSystem.color4f(1f, 1f, 1f, alpha);
+        if (this.cubemap != null) {
+            this.cubemap.draw(matrices.last().pose(), this.mesh);
+        } else {
+            this.mesh.draw(matrices.last().pose(), textureManager, this.drawTextures);
+        }
+        RenderSystem.color4f(1f, 1f, 1f, 1f);
+    }
+
+    /**
+     * @return The faces of the given textures packed into an atlas, or the textures themselves
+     * if they can't be packed or already share a single texture.
+     */
+    private Textures getAtlasTextures(TextureManager textureManager, Textures textures) {
+        if (isSingleTexture(textures)) {
+            return textures;
+        }
+        SkyboxAtlas atlas;
+        if (this.atlases.containsKey(textures)) {
+            atlas = this.atlases.get(textures);
+        } else {
+            atlas = SkyboxAtlas.create(Minecraft.getInstance().getResourceManager(), textureManager, textures);
+            this.atlases.put(textures, atlas);
+        }
+        return atlas == null ? textures : atlas.getTextures();
+    }
+
+    private static boolean isSingleTexture(Textures textures) {
+        for (int i = 1; i < 6; i++) {
+            if (!textures.byId(i).getTextureId().equals(textures.byId(0).getTextureId())) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            Matrix4f matrix4f = matrices.last().pose();
-            bufferBuilder.begin(7, DefaultVertexFormats.POSITION_TEX_COLOR);
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, -100.0F).uv(tex.getMinU(), tex.getMinV()).color(1f, 1f, 1f, alpha).endVertex();
-            bufferBuilder.vertex(matrix4f, -100.0F, -100.0F, 100.0F).uv(tex.getMinU(), tex.getMaxV()).color(1f, 1f, 1f, alpha).endVertex();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, 100.0F).uv(tex.getMaxU(), tex.getMaxV()).color(1f, 1f, 1f, alpha).endVertex();
-            bufferBuilder.vertex(matrix4f, 100.0F, -100.0F, -100.0F).uv(tex.getMaxU(), tex.getMinV()).color(1f, 1f, 1f, alpha).endVertex();
-            tessellator.end();
-            matrices.popPose();
+    /**
+     * @return The cube map of the given textures, or null if it can't be built.
+     */
+    private SkyboxCubemap getCubemap(Textures textures) {
+        if (this.cubemaps.containsKey(textures)) {
+            return this.cubemaps.get(textures);
         }
+        SkyboxCubemap cubemap = SkyboxCubemap.create(Minecraft.getInstance().getResourceManager(), textures);
+        this.cubemaps.put(textures, cubemap);
+        return cubemap;
+    }
+
+    @Override
+    public void dispose() {
+        this.meshes.values().forEach(SkyboxCubeMesh::close);
+        this.meshes.clear();
+        this.atlases.values().stream().filter(Objects::nonNull).forEach(SkyboxAtlas::close);
+        this.atlases.clear();
+        this.cubemaps.values().stream().filter(Objects::nonNull).forEach(SkyboxCubemap::close);
+        this.cubemaps.clear();
+        this.cubemap = null;
+        this.mesh = null;
+        this.meshTextures = null;
+        this.drawTextures = null;
+    }
+
+    public RenderMode getRenderMode() {
+        return this.renderMode;
     }
 }
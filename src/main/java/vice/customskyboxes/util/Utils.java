@@ -13,7 +13,19 @@ public class Utils {
      * @return The amount of ticks in between start and end
      */
     public static int getTicksBetween(int start, int end) {
-        if (end < start) end += 24000;
+        return getTicksBetween(start, end, 24000);
+    }
+
+    /**
+     * Gets the amount of ticks in between start and end, on a day of the given length.
+     *
+     * @param start     The start of the time you wish to measure
+     * @param end       The end of the time you wish to measure
+     * @param dayLength The amount of ticks in a day
+     * @return The amount of ticks in between start and end
+     */
+    public static int getTicksBetween(int start, int end, int dayLength) {
+        if (end < start) end += dayLength;
         return end - start;
     }
 
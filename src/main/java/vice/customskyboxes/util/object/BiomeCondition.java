@@ -0,0 +1,97 @@
+package vice.customskyboxes.util.object;
+
+import com.google.common.collect.ImmutableSet;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import net.minecraftforge.common.BiomeDictionary;
+import vice.customskyboxes.SkyEnvironment;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The biomes a skybox shows in, given as biome ids, biome categories and biome dictionary
+ * types. The condition is resolved into the raw ids of every matching biome the first time it
+ * is checked against a biome registry, and again whenever the registry is replaced, such as
+ * when joining another world.
+ */
+public class BiomeCondition {
+    private final Set<ResourceLocation> biomes;
+    private final Set<Biome.Category> categories;
+    /**
+     * Upper case, like the names of the biome dictionary types.
+     */
+    private final Set<String> types;
+
+    private Registry<Biome> resolvedRegistry;
+    private BitSet resolvedIds = new BitSet();
+
+    public BiomeCondition(Collection<ResourceLocation> biomes, Collection<Biome.Category> categories, Collection<String> types) {
+        this.biomes = ImmutableSet.copyOf(biomes);
+        this.categories = ImmutableSet.copyOf(categories);
+        ImmutableSet.Builder<String> typeNames = ImmutableSet.builder();
+        for (String type : types) {
+            typeNames.add(type.toUpperCase(Locale.ROOT));
+        }
+        this.types = typeNames.build();
+    }
+
+    /**
+     * @return Whether the condition holds in any biome.
+     */
+    public boolean isEmpty() {
+        return this.biomes.isEmpty() && this.categories.isEmpty() && this.types.isEmpty();
+    }
+
+    /**
+     * @return Whether the biome of the environment matches.
+     */
+    public boolean test(SkyEnvironment environment) {
+        int biomeId = environment.getBiomeId();
+        return biomeId >= 0 && this.resolve(environment.getBiomeRegistry()).get(biomeId);
+    }
+
+    /**
+     * Gets the raw ids of every matching biome of the registry. Must be called on the render thread.
+     *
+     * @return The raw ids. Must not be modified.
+     */
+    public BitSet resolve(Registry<Biome> registry) {
+        if (registry != this.resolvedRegistry) {
+            BitSet ids = new BitSet();
+            for (Biome biome : registry) {
+                if (this.matches(registry, biome)) {
+                    ids.set(registry.getId(biome));
+                }
+            }
+            this.resolvedIds = ids;
+            this.resolvedRegistry = registry;
+        }
+        return this.resolvedIds;
+    }
+
+    private boolean matches(Registry<Biome> registry, Biome biome) {
+        if (this.categories.contains(biome.getBiomeCategory())) {
+            return true;
+        }
+        ResourceLocation id = registry.getKey(biome);
+        if (id == null) {
+            return false;
+        }
+        if (this.biomes.contains(id)) {
+            return true;
+        }
+        if (!this.types.isEmpty()) {
+            for (BiomeDictionary.Type type : BiomeDictionary.getTypes(RegistryKey.create(Registry.BIOME_REGISTRY, id))) {
+                if (this.types.contains(type.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
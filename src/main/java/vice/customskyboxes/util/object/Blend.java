@@ -1,10 +1,10 @@
 package vice.customskyboxes.util.object;
 
 import com.mojang.blaze3d.platform.GlStateManager;
-import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import vice.customskyboxes.FabricSkyBoxesClient;
+import vice.customskyboxes.render.SkyStateTracker;
 import org.lwjgl.opengl.GL14;
 
 public class Blend {
@@ -32,50 +32,50 @@ public class Blend {
             switch (type) {
                 case "add":
                     blendFunc = () -> {
-                        RenderSystem.blendFunc(GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ONE);
-                        RenderSystem.blendEquation(GL14.GL_FUNC_ADD);
+                        SkyStateTracker.getInstance().blendFunc(GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ONE);
+                        SkyStateTracker.getInstance().blendEquation(GL14.GL_FUNC_ADD);
                     };
                     break;
 
                 case "subtract":
                     blendFunc = () -> {
-                        RenderSystem.blendFunc(GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ONE);
-                        RenderSystem.blendEquation(GL14.GL_FUNC_SUBTRACT);
+                        SkyStateTracker.getInstance().blendFunc(GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ONE);
+                        SkyStateTracker.getInstance().blendEquation(GL14.GL_FUNC_SUBTRACT);
                     };
                     break;
 
                 case "multiply":
                     blendFunc = () -> {
-                        RenderSystem.blendFunc(GlStateManager.SourceFactor.DST_COLOR, GlStateManager.DestFactor.ZERO);
-                        RenderSystem.blendEquation(GL14.GL_FUNC_ADD);
+                        SkyStateTracker.getInstance().blendFunc(GlStateManager.SourceFactor.DST_COLOR, GlStateManager.DestFactor.ZERO);
+                        SkyStateTracker.getInstance().blendEquation(GL14.GL_FUNC_ADD);
                     };
                     break;
 
                 case "screen":
                     blendFunc = () -> {
-                        RenderSystem.blendFunc(GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ONE_MINUS_SRC_COLOR);
-                        RenderSystem.blendEquation(GL14.GL_FUNC_ADD);
+                        SkyStateTracker.getInstance().blendFunc(GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ONE_MINUS_SRC_COLOR);
+                        SkyStateTracker.getInstance().blendEquation(GL14.GL_FUNC_ADD);
                     };
                     break;
 
                 case "replace":
                     blendFunc = () -> {
-                        RenderSystem.blendFunc(GlStateManager.SourceFactor.ZERO, GlStateManager.DestFactor.ONE);
-                        RenderSystem.blendEquation(GL14.GL_FUNC_ADD);
+                        SkyStateTracker.getInstance().blendFunc(GlStateManager.SourceFactor.ZERO, GlStateManager.DestFactor.ONE);
+                        SkyStateTracker.getInstance().blendEquation(GL14.GL_FUNC_ADD);
                     };
                     break;
 
                 default:
                     FabricSkyBoxesClient.getLogger().error("Blend mode is set to an invalid or unsupported value.");
-                    blendFunc = RenderSystem::defaultBlendFunc;
+                    blendFunc = SkyStateTracker.getInstance()::defaultBlendFunc;
             }
         } else if (sFactor != 0 && dFactor != 0) {
             blendFunc = () -> {
-                RenderSystem.blendFunc(sFactor, dFactor);
-                RenderSystem.blendEquation(equation);
+                SkyStateTracker.getInstance().blendFunc(sFactor, dFactor);
+                SkyStateTracker.getInstance().blendEquation(equation);
             };
         } else {
-            blendFunc = RenderSystem::defaultBlendFunc;
+            blendFunc = SkyStateTracker.getInstance()::defaultBlendFunc;
         }
     }
 
@@ -83,6 +83,18 @@ public class Blend {
         blendFunc.run();
     }
 
+    /**
+     * @return A key that is equal for blends that set the same GL state.
+     */
+    public String getSortKey() {
+        if (this.type != null && !this.type.isEmpty()) {
+            return this.type;
+        } else if (this.sFactor != 0 && this.dFactor != 0) {
+            return this.sFactor + "/" + this.dFactor + "/" + this.equation;
+        }
+        return "";
+    }
+
     public String getType() {
         return type;
     }
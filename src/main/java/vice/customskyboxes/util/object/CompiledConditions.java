@@ -0,0 +1,90 @@
+package vice.customskyboxes.util.object;
+
+import com.google.common.collect.ImmutableSet;
+import net.minecraft.util.ResourceLocation;
+import vice.customskyboxes.SkyEnvironment;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The conditions of a skybox compiled into checks against a {@link SkyEnvironment}.
+ * <p>
+ * Ids are kept in hash sets and weathers in a bitmask. Only the conditions that were set are
+ * checked, cheapest first: dimension, weather, height, effects and then biome, so a skybox
+ * failing a cheap check never gets to the expensive ones.
+ */
+public class CompiledConditions implements Predicate<SkyEnvironment> {
+    private final Predicate<SkyEnvironment>[] checks;
+
+    private CompiledConditions(Predicate<SkyEnvironment>[] checks) {
+        this.checks = checks;
+    }
+
+    /**
+     * @param worlds   The worlds the skybox shows in, any world if empty.
+     * @param weathers The names of the weathers the skybox shows in, any weather if empty. Unknown names never match.
+     * @param heights  The heights the skybox shows at, any height if empty.
+     * @param effects  The status effects the skybox shows with.
+     * @param biomes   The biomes the skybox shows in.
+     */
+    @SuppressWarnings("unchecked")
+    public static CompiledConditions compile(Collection<ResourceLocation> worlds, Collection<String> weathers, Collection<HeightEntry> heights, EffectCondition effects, BiomeCondition biomes) {
+        List<Predicate<SkyEnvironment>> checks = new ArrayList<>();
+        if (!worlds.isEmpty()) {
+            Set<ResourceLocation> worldSet = ImmutableSet.copyOf(worlds);
+            checks.add(environment -> worldSet.contains(environment.getDimension()));
+        }
+        if (!weathers.isEmpty()) {
+            int weatherMask = Weather.maskOf(weathers);
+            checks.add(environment -> (environment.getWeatherMask() & weatherMask) != 0);
+        }
+        if (!heights.isEmpty()) {
+            // empty ranges still count as a condition, which then never holds
+            HeightIntervals intervals = HeightIntervals.of(heights);
+            checks.add(environment -> intervals.contains(environment.getPlayerY()));
+        }
+        if (!effects.getRequired().isEmpty()) {
+            BitSet required = EffectCondition.resolve(effects.getRequired());
+            if (required.cardinality() < ImmutableSet.copyOf(effects.getRequired()).size()) {
+                // an effect that doesn't exist is never active
+                checks.add(environment -> false);
+            } else {
+                checks.add(environment -> {
+                    BitSet active = environment.getActiveEffects();
+                    for (int i = required.nextSetBit(0); i >= 0; i = required.nextSetBit(i + 1)) {
+                        if (!active.get(i)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+        }
+        if (!effects.getForbidden().isEmpty()) {
+            BitSet forbidden = EffectCondition.resolve(effects.getForbidden());
+            checks.add(environment -> !forbidden.intersects(environment.getActiveEffects()));
+        }
+        if (!biomes.isEmpty()) {
+            checks.add(biomes::test);
+        }
+        return new CompiledConditions(checks.toArray(new Predicate[0]));
+    }
+
+    /**
+     * @return Whether every condition holds in the environment.
+     */
+    @Override
+    public boolean test(SkyEnvironment environment) {
+        for (Predicate<SkyEnvironment> check : this.checks) {
+            if (!check.test(environment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
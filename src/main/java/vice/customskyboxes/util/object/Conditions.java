@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.biome.Biome;
 import vice.customskyboxes.skyboxes.AbstractSkybox;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -15,19 +16,39 @@ public class Conditions {
             ResourceLocation.CODEC.listOf().optionalFieldOf("biomes", ImmutableList.of()).forGetter(Conditions::getBiomes),
             ResourceLocation.CODEC.listOf().optionalFieldOf("worlds", ImmutableList.of()).forGetter(Conditions::getWorlds),
             Weather.CODEC.listOf().optionalFieldOf("weather", ImmutableList.of()).forGetter(Conditions::getWeathers),
-            HeightEntry.CODEC.listOf().optionalFieldOf("heights", ImmutableList.of()).forGetter(Conditions::getHeights)
+            HeightEntry.CODEC.listOf().optionalFieldOf("heights", ImmutableList.of()).forGetter(Conditions::getHeights),
+            EffectCondition.CODEC.optionalFieldOf("effects", EffectCondition.DEFAULT).forGetter(Conditions::getEffects),
+            Biome.Category.CODEC.listOf().optionalFieldOf("biomeCategories", ImmutableList.of()).forGetter(Conditions::getBiomeCategories),
+            Codec.STRING.listOf().optionalFieldOf("biomeTypes", ImmutableList.of()).forGetter(Conditions::getBiomeTypes)
     ).apply(instance, Conditions::new));
     public static final Conditions NO_CONDITIONS = new Builder().build();
     private final List<ResourceLocation> biomes;
     private final List<ResourceLocation> worlds;
     private final List<Weather> weathers;
     private final List<HeightEntry> heights;
+    private final EffectCondition effects;
+    private final List<Biome.Category> biomeCategories;
+    /**
+     * Names of Forge biome dictionary types.
+     */
+    private final List<String> biomeTypes;
 
     public Conditions(List<ResourceLocation> biomes, List<ResourceLocation> worlds, List<Weather> weathers, List<HeightEntry> heights) {
+        this(biomes, worlds, weathers, heights, EffectCondition.DEFAULT);
+    }
+
+    public Conditions(List<ResourceLocation> biomes, List<ResourceLocation> worlds, List<Weather> weathers, List<HeightEntry> heights, EffectCondition effects) {
+        this(biomes, worlds, weathers, heights, effects, ImmutableList.of(), ImmutableList.of());
+    }
+
+    public Conditions(List<ResourceLocation> biomes, List<ResourceLocation> worlds, List<Weather> weathers, List<HeightEntry> heights, EffectCondition effects, List<Biome.Category> biomeCategories, List<String> biomeTypes) {
         this.biomes = biomes;
         this.worlds = worlds;
         this.weathers = weathers;
         this.heights = heights;
+        this.effects = effects;
+        this.biomeCategories = biomeCategories;
+        this.biomeTypes = biomeTypes;
     }
 
     public List<ResourceLocation> getBiomes() {
@@ -46,6 +67,18 @@ public class Conditions {
         return this.heights;
     }
 
+    public EffectCondition getEffects() {
+        return this.effects;
+    }
+
+    public List<Biome.Category> getBiomeCategories() {
+        return this.biomeCategories;
+    }
+
+    public List<String> getBiomeTypes() {
+        return this.biomeTypes;
+    }
+
     public static Conditions ofSkybox(AbstractSkybox skybox) {
         return new Builder()
                 .biomes(skybox.getBiomes())
@@ -55,6 +88,9 @@ public class Conditions {
                         .map(Weather::fromString)
                         .collect(Collectors.toSet()))
                 .heights(skybox.getHeightRanges())
+                .effects(skybox.getEffects())
+                .biomeCategories(skybox.getBiomeCategories())
+                .biomeTypes(skybox.getBiomeTypes())
                 .build();
     }
 
@@ -63,6 +99,9 @@ public class Conditions {
         private final List<ResourceLocation> worlds = Lists.newArrayList();
         private final List<Weather> weathers = Lists.newArrayList();
         private final List<HeightEntry> heights = Lists.newArrayList();
+        private EffectCondition effects = EffectCondition.DEFAULT;
+        private final List<Biome.Category> biomeCategories = Lists.newArrayList();
+        private final List<String> biomeTypes = Lists.newArrayList();
 
         public Builder biomes(Collection<ResourceLocation> biomeIds) {
             this.biomes.addAll(biomeIds);
@@ -84,6 +123,21 @@ public class Conditions {
             return this;
         }
 
+        public Builder effects(EffectCondition effects) {
+            this.effects = effects;
+            return this;
+        }
+
+        public Builder biomeCategories(Collection<Biome.Category> categories) {
+            this.biomeCategories.addAll(categories);
+            return this;
+        }
+
+        public Builder biomeTypes(Collection<String> types) {
+            this.biomeTypes.addAll(types);
+            return this;
+        }
+
         public Builder biomes(ResourceLocation... biomeIds) {
             return this.biomes(Lists.newArrayList(biomeIds));
         }
@@ -101,7 +155,7 @@ public class Conditions {
         }
 
         public Conditions build() {
-            return new Conditions(this.biomes, this.worlds, this.weathers, this.heights);
+            return new Conditions(this.biomes, this.worlds, this.weathers, this.heights, this.effects, this.biomeCategories, this.biomeTypes);
         }
     }
 }
@@ -15,7 +15,8 @@ public class DefaultProperties {
             RGBA.CODEC.optionalFieldOf("fogColors", RGBA.ZERO).forGetter(DefaultProperties::getFogColors),
             Codec.BOOL.optionalFieldOf("sunSkyTint", true).forGetter(DefaultProperties::isRenderSunSkyTint),
             Codec.BOOL.optionalFieldOf("shouldRotate", false).forGetter(DefaultProperties::isShouldRotate),
-            Rotation.CODEC.optionalFieldOf("rotation", Rotation.DEFAULT).forGetter(DefaultProperties::getRotation)
+            Rotation.CODEC.optionalFieldOf("rotation", Rotation.DEFAULT).forGetter(DefaultProperties::getRotation),
+            Codec.INT.optionalFieldOf("priority", 0).forGetter(DefaultProperties::getPriority)
     ).apply(instance, DefaultProperties::new));
     private final Fade fade;
     private final float maxAlpha;
@@ -25,8 +26,13 @@ public class DefaultProperties {
     private final boolean renderSunSkyTint;
     private final boolean shouldRotate;
     private final Rotation rotation;
+    private final int priority;
 
     public DefaultProperties(Fade fade, float maxAlpha, float transitionSpeed, boolean changeFog, RGBA fogColors, boolean renderSunSkyTint, boolean shouldRotate, Rotation rotation) {
+        this(fade, maxAlpha, transitionSpeed, changeFog, fogColors, renderSunSkyTint, shouldRotate, rotation, 0);
+    }
+
+    public DefaultProperties(Fade fade, float maxAlpha, float transitionSpeed, boolean changeFog, RGBA fogColors, boolean renderSunSkyTint, boolean shouldRotate, Rotation rotation, int priority) {
         this.fade = fade;
         this.maxAlpha = maxAlpha;
         this.transitionSpeed = transitionSpeed;
@@ -35,6 +41,7 @@ public class DefaultProperties {
         this.renderSunSkyTint = renderSunSkyTint;
         this.shouldRotate = shouldRotate;
         this.rotation = rotation;
+        this.priority = priority;
     }
 
     public Fade getFade() {
@@ -69,6 +76,13 @@ public class DefaultProperties {
         return this.rotation;
     }
 
+    /**
+     * @return The draw order of the skybox, skyboxes with a lower priority are drawn first.
+     */
+    public int getPriority() {
+        return this.priority;
+    }
+
     public static DefaultProperties ofSkybox(AbstractSkybox skybox) {
         Rotation rot = Rotation.DEFAULT;
         if (skybox instanceof RotatableSkybox) {
@@ -83,6 +97,7 @@ public class DefaultProperties {
                 .fade(skybox.getFade())
                 .maxAlpha(skybox.getMaxAlpha())
                 .rotation(rot)
+                .priority(skybox.getPriority())
                 .build();
     }
 
@@ -95,6 +110,7 @@ public class DefaultProperties {
         private boolean renderSunSkyTint = true;
         private boolean shouldRotate = false;
         private Rotation rotation = Rotation.DEFAULT;
+        private int priority = 0;
 
         public Builder fade(Fade fade) {
             this.fade = fade;
@@ -131,6 +147,11 @@ public class DefaultProperties {
             return this;
         }
 
+        public Builder priority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
         public Builder rotates() {
             this.shouldRotate = true;
             return this;
@@ -161,7 +182,7 @@ public class DefaultProperties {
         }
 
         public DefaultProperties build() {
-            return new DefaultProperties(this.fade, this.maxAlpha, this.transitionSpeed, this.changeFog, this.fogColors, this.renderSunSkyTint, this.shouldRotate, this.rotation);
+            return new DefaultProperties(this.fade, this.maxAlpha, this.transitionSpeed, this.changeFog, this.fogColors, this.renderSunSkyTint, this.shouldRotate, this.rotation, this.priority);
         }
     }
 }
@@ -0,0 +1,52 @@
+package vice.customskyboxes.util.object;
+
+import com.google.common.collect.ImmutableList;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.minecraft.potion.Effect;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The status effects a skybox shows with. Every required effect has to be active and no
+ * forbidden effect may be. By default the sky hides for players with blindness.
+ */
+public class EffectCondition {
+    public static final ResourceLocation BLINDNESS = new ResourceLocation("blindness");
+    public static final Codec<EffectCondition> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            ResourceLocation.CODEC.listOf().optionalFieldOf("required", ImmutableList.of()).forGetter(EffectCondition::getRequired),
+            ResourceLocation.CODEC.listOf().optionalFieldOf("forbidden", ImmutableList.of(BLINDNESS)).forGetter(EffectCondition::getForbidden)
+    ).apply(instance, EffectCondition::new));
+    public static final EffectCondition DEFAULT = new EffectCondition(ImmutableList.of(), ImmutableList.of(BLINDNESS));
+    private final List<ResourceLocation> required;
+    private final List<ResourceLocation> forbidden;
+
+    public EffectCondition(List<ResourceLocation> required, List<ResourceLocation> forbidden) {
+        this.required = required;
+        this.forbidden = forbidden;
+    }
+
+    public List<ResourceLocation> getRequired() {
+        return this.required;
+    }
+
+    public List<ResourceLocation> getForbidden() {
+        return this.forbidden;
+    }
+
+    /**
+     * Resolves effect ids to their raw registry ids, skipping effects that don't exist.
+     */
+    static BitSet resolve(List<ResourceLocation> effectIds) {
+        BitSet bits = new BitSet();
+        for (ResourceLocation effectId : effectIds) {
+            Optional<Effect> effect = Registry.MOB_EFFECT.getOptional(effectId);
+            effect.ifPresent(value -> bits.set(Effect.getId(value)));
+        }
+        return bits;
+    }
+}
@@ -1,29 +1,229 @@
 package vice.customskyboxes.util.object;
 
+import com.google.common.collect.ImmutableList;
+import com.mojang.datafixers.util.Either;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import vice.customskyboxes.util.Utils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * The alpha of a skybox over the course of a day, either as a trapezoid (fade in, stay, fade out)
+ * or as a list of keyframes that are linearly interpolated between.
+ * <p>
+ * Each fade is compiled once into a sorted array of segments, each a linear function of the
+ * current tick, so looking up the alpha is a binary search over a handful of entries.
+ * Trapezoid fades give the same values the trapezoid formula always did.
+ */
 public class Fade {
+    public static final int DEFAULT_DAY_LENGTH = 24000;
     public static final Fade ZERO = new Fade(0, 0, 0, 0, false);
-    public static final Codec<Fade> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+    private static final Codec<Fade> TRAPEZOID_CODEC = RecordCodecBuilder.create(instance -> instance.group(
             Codec.INT.fieldOf("startFadeIn").forGetter(Fade::getStartFadeIn),
             Codec.INT.fieldOf("endFadeIn").forGetter(Fade::getEndFadeIn),
             Codec.INT.fieldOf("startFadeOut").forGetter(Fade::getStartFadeOut),
             Codec.INT.fieldOf("endFadeOut").forGetter(Fade::getEndFadeOut),
-            Codec.BOOL.optionalFieldOf("alwaysOn", false).forGetter(Fade::isAlwaysOn)
-    ).apply(instance, Fade::new));
+            Codec.BOOL.optionalFieldOf("alwaysOn", false).forGetter(Fade::isAlwaysOn),
+            Codec.intRange(1, Integer.MAX_VALUE).optionalFieldOf("dayLength", DEFAULT_DAY_LENGTH).forGetter(Fade::getDayLength)
+    ).apply(instance, (startFadeIn, endFadeIn, startFadeOut, endFadeOut, alwaysOn, dayLength) -> new Fade(startFadeIn, endFadeIn, startFadeOut, endFadeOut, alwaysOn, ImmutableList.of(), dayLength)));
+    private static final Codec<Fade> KEYFRAME_CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Keyframe.CODEC.listOf().fieldOf("keyframes").forGetter(Fade::getKeyframes),
+            Codec.BOOL.optionalFieldOf("alwaysOn", false).forGetter(Fade::isAlwaysOn),
+            Codec.intRange(1, Integer.MAX_VALUE).optionalFieldOf("dayLength", DEFAULT_DAY_LENGTH).forGetter(Fade::getDayLength)
+    ).apply(instance, (keyframes, alwaysOn, dayLength) -> new Fade(0, 0, 0, 0, alwaysOn, keyframes, dayLength)));
+    public static final Codec<Fade> CODEC = Codec.either(KEYFRAME_CODEC, TRAPEZOID_CODEC).xmap(
+            either -> either.map(Function.identity(), Function.identity()),
+            fade -> fade.getKeyframes().isEmpty() ? Either.right(fade) : Either.left(fade)
+    );
     private final int startFadeIn;
     private final int endFadeIn;
     private final int startFadeOut;
     private final int endFadeOut;
     private final boolean alwaysOn;
+    private final List<Keyframe> keyframes;
+    private final int dayLength;
+
+    // Segment i covers the ticks from segmentStarts[i] up to the next start, with
+    // alpha = segmentA[i] - segmentB[i] * ((float) (segmentC[i] - tick) / segmentD[i])
+    private final int[] segmentStarts;
+    private final float[] segmentA;
+    private final float[] segmentB;
+    private final int[] segmentC;
+    private final int[] segmentD;
 
     public Fade(int startFadeIn, int endFadeIn, int startFadeOut, int endFadeOut, boolean alwaysOn) {
+        this(startFadeIn, endFadeIn, startFadeOut, endFadeOut, alwaysOn, ImmutableList.of(), DEFAULT_DAY_LENGTH);
+    }
+
+    public Fade(int startFadeIn, int endFadeIn, int startFadeOut, int endFadeOut, boolean alwaysOn, List<Keyframe> keyframes, int dayLength) {
         this.startFadeIn = startFadeIn;
         this.endFadeIn = endFadeIn;
         this.startFadeOut = startFadeOut;
         this.endFadeOut = endFadeOut;
         this.alwaysOn = alwaysOn;
+        this.keyframes = ImmutableList.copyOf(keyframes);
+        this.dayLength = dayLength;
+
+        SegmentBuilder segments = new SegmentBuilder();
+        if (this.keyframes.isEmpty()) {
+            this.compileTrapezoid(segments);
+        } else {
+            this.compileKeyframes(segments);
+        }
+        int size = segments.starts.size();
+        this.segmentStarts = new int[size];
+        this.segmentA = new float[size];
+        this.segmentB = new float[size];
+        this.segmentC = new int[size];
+        this.segmentD = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.segmentStarts[i] = segments.starts.get(i);
+            this.segmentA[i] = segments.a.get(i);
+            this.segmentB[i] = segments.b.get(i);
+            this.segmentC[i] = segments.c.get(i);
+            this.segmentD[i] = segments.d.get(i);
+        }
+    }
+
+    /**
+     * Gets the alpha this fade gives at the given time, ignoring {@link #isAlwaysOn()}.
+     *
+     * @param dayTime The day time of the world.
+     * @return The alpha, between 0 and 1.
+     */
+    public float getAlphaAt(long dayTime) {
+        int tick;
+        if (this.keyframes.isEmpty()) {
+            // same modulo as the trapezoid was always evaluated with, negative times included
+            tick = (int) dayTime % this.dayLength;
+        } else {
+            tick = (int) Math.floorMod(dayTime, (long) this.dayLength);
+        }
+        int index = Arrays.binarySearch(this.segmentStarts, tick);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return this.segmentA[index] - this.segmentB[index] * ((float) (this.segmentC[index] - tick) / this.segmentD[index]);
+    }
+
+    /**
+     * Turns the trapezoid into segments. Which branch of the trapezoid formula applies only
+     * changes at ticks next to one of the fade points, so the formula is evaluated at those
+     * ticks and each result is extended up to the next of them. This gives every tick a day
+     * time can map to exactly the value the formula gives for it.
+     */
+    private void compileTrapezoid(SegmentBuilder segments) {
+        int length = this.dayLength;
+        int durationIn = Utils.getTicksBetween(this.startFadeIn, this.endFadeIn, length);
+        int durationOut = Utils.getTicksBetween(this.startFadeOut, this.endFadeOut, length);
+
+        int startFadeIn = this.startFadeIn % length;
+        int endFadeIn = this.endFadeIn % length;
+
+        if (endFadeIn < startFadeIn) {
+            endFadeIn += length;
+        }
+
+        int startFadeOut = this.startFadeOut % length;
+        int endFadeOut = this.endFadeOut % length;
+
+        if (startFadeOut < endFadeIn) {
+            startFadeOut += length;
+        }
+
+        if (endFadeOut < startFadeOut) {
+            endFadeOut += length;
+        }
+
+        int first = 1 - length;
+        TreeSet<Long> breakpoints = new TreeSet<>();
+        breakpoints.add((long) first);
+        for (int point : new int[]{startFadeIn, endFadeIn, startFadeOut, endFadeOut}) {
+            for (long offset = -2L * length; offset <= length; offset += length) {
+                for (long tick = point + offset; tick <= point + offset + 1; tick++) {
+                    if (tick > first && tick < length) {
+                        breakpoints.add(tick);
+                    }
+                }
+            }
+        }
+
+        for (long breakpoint : breakpoints) {
+            int currentTime = (int) breakpoint;
+            int tempInTime = currentTime;
+
+            if (tempInTime < startFadeIn) {
+                tempInTime += length;
+            }
+
+            int tempFullTime = currentTime;
+
+            if (tempFullTime < endFadeIn) {
+                tempFullTime += length;
+            }
+
+            int tempOutTime = currentTime;
+
+            if (tempOutTime < startFadeOut) {
+                tempOutTime += length;
+            }
+
+            if (startFadeIn < tempInTime && endFadeIn >= tempInTime) {
+                // fading in: 1 - (endFadeIn - tempInTime) / durationIn
+                segments.add(currentTime, 1f, 1f, endFadeIn - (tempInTime - currentTime), durationIn);
+            } else if (endFadeIn < tempFullTime && startFadeOut >= tempFullTime) {
+                segments.add(currentTime, 1f, 0f, 0, 1); // fully faded in
+            } else if (startFadeOut < tempOutTime && endFadeOut >= tempOutTime) {
+                // fading out: (endFadeOut - tempOutTime) / durationOut
+                segments.add(currentTime, 0f, -1f, endFadeOut - (tempOutTime - currentTime), durationOut);
+            } else {
+                segments.add(currentTime, 0f, 0f, 0, 1); // default not showing
+            }
+        }
+    }
+
+    /**
+     * Turns the keyframes into one segment per pair of consecutive keyframes, wrapping around
+     * from the last keyframe of a day to the first one of the next.
+     */
+    private void compileKeyframes(SegmentBuilder segments) {
+        int length = this.dayLength;
+        List<Keyframe> sorted = new ArrayList<>(this.keyframes.size());
+        for (Keyframe keyframe : this.keyframes) {
+            sorted.add(new Keyframe(Math.floorMod(keyframe.getTick(), length), keyframe.getAlpha()));
+        }
+        sorted.sort(Comparator.comparingInt(Keyframe::getTick));
+
+        Keyframe first = sorted.get(0);
+        Keyframe last = sorted.get(sorted.size() - 1);
+        if (first.getTick() > 0) {
+            addInterpolation(segments, 0, last.getTick() - length, last.getAlpha(), first.getTick(), first.getAlpha());
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            Keyframe from = sorted.get(i);
+            if (i + 1 < sorted.size()) {
+                Keyframe to = sorted.get(i + 1);
+                if (to.getTick() > from.getTick()) {
+                    addInterpolation(segments, from.getTick(), from.getTick(), from.getAlpha(), to.getTick(), to.getAlpha());
+                }
+            } else {
+                addInterpolation(segments, from.getTick(), from.getTick(), from.getAlpha(), first.getTick() + length, first.getAlpha());
+            }
+        }
+    }
+
+    private static void addInterpolation(SegmentBuilder segments, int start, int fromTick, float fromAlpha, int toTick, float toAlpha) {
+        if (toTick == fromTick) {
+            segments.add(start, toAlpha, 0f, 0, 1);
+        } else {
+            segments.add(start, toAlpha, toAlpha - fromAlpha, toTick, toTick - fromTick);
+        }
     }
 
     public int getStartFadeIn() {
@@ -45,4 +245,35 @@ public class Fade {
     public boolean isAlwaysOn() {
         return alwaysOn;
     }
-}
\ No newline at end of file
+
+    public List<Keyframe> getKeyframes() {
+        return this.keyframes;
+    }
+
+    public int getDayLength() {
+        return this.dayLength;
+    }
+
+    /**
+     * Collects segments, merging a segment into the previous one when they are the same function.
+     */
+    private static class SegmentBuilder {
+        private final List<Integer> starts = new ArrayList<>();
+        private final List<Float> a = new ArrayList<>();
+        private final List<Float> b = new ArrayList<>();
+        private final List<Integer> c = new ArrayList<>();
+        private final List<Integer> d = new ArrayList<>();
+
+        private void add(int start, float a, float b, int c, int d) {
+            int last = this.starts.size() - 1;
+            if (last >= 0 && this.a.get(last) == a && this.b.get(last) == b && this.c.get(last) == c && this.d.get(last) == d) {
+                return;
+            }
+            this.starts.add(start);
+            this.a.add(a);
+            this.b.add(b);
+            this.c.add(c);
+            this.d.add(d);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package vice.customskyboxes.util.object;
 
-import org.apache.commons.lang3.builder.ToStringBuilder;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 
@@ -14,7 +13,7 @@ public class HeightEntry {
 
     public HeightEntry(float min, float max) {
         if (min > max) {
-            throw new IllegalStateException("Maximum value is lower than the minimum value:\n" + this.toString());
+            throw new IllegalStateException("Maximum value " + max + " is lower than the minimum value " + min);
         }
         this.min = min;
         this.max = max;
@@ -30,6 +29,6 @@ public class HeightEntry {
 
     @Override
     public String toString() {
-        return ToStringBuilder.reflectionToString(this);
+        return "HeightEntry{min=" + this.min + ", max=" + this.max + "}";
     }
 }
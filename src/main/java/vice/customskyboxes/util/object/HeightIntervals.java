@@ -0,0 +1,75 @@
+package vice.customskyboxes.util.object;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Height ranges merged into sorted, disjoint open intervals, so finding whether a height is
+ * in any of them is a binary search. Like {@link HeightEntry}, the bounds themselves are not
+ * part of the intervals.
+ */
+public class HeightIntervals {
+    public static final HeightIntervals EMPTY = new HeightIntervals(new float[0]);
+
+    /**
+     * The minimum and maximum of every interval, one after another in ascending order.
+     */
+    private final float[] bounds;
+
+    private HeightIntervals(float[] bounds) {
+        this.bounds = bounds;
+    }
+
+    public static HeightIntervals of(Collection<HeightEntry> entries) {
+        HeightEntry[] sorted = entries.toArray(new HeightEntry[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(HeightEntry::getMin));
+
+        float[] bounds = new float[sorted.length * 2];
+        int length = 0;
+        for (HeightEntry entry : sorted) {
+            if (entry.getMin() >= entry.getMax()) {
+                // contains no height at all
+                continue;
+            }
+            // ranges only merge when they overlap, as a bound shared by two ranges is in neither
+            if (length > 0 && entry.getMin() < bounds[length - 1]) {
+                bounds[length - 1] = Math.max(bounds[length - 1], entry.getMax());
+            } else {
+                bounds[length++] = entry.getMin();
+                bounds[length++] = entry.getMax();
+            }
+        }
+        return length == 0 ? EMPTY : new HeightIntervals(Arrays.copyOf(bounds, length));
+    }
+
+    public boolean isEmpty() {
+        return this.bounds.length == 0;
+    }
+
+    /**
+     * @return Whether the height is strictly between the bounds of one of the intervals.
+     */
+    public boolean contains(double height) {
+        int low = 0;
+        int high = this.bounds.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (height <= this.bounds[mid * 2]) {
+                high = mid - 1;
+            } else if (height >= this.bounds[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The minimum and maximum of every interval, one after another in ascending order. Must not be modified.
+     */
+    public float[] getBounds() {
+        return this.bounds;
+    }
+}
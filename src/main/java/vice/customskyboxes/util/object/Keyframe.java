@@ -0,0 +1,30 @@
+package vice.customskyboxes.util.object;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import vice.customskyboxes.util.Utils;
+
+/**
+ * A point of a {@link Fade} curve: the alpha a skybox should have at a certain time of day.
+ */
+public class Keyframe {
+    public static final Codec<Keyframe> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.INT.fieldOf("tick").forGetter(Keyframe::getTick),
+            Utils.getClampedFloat(0.0F, 1.0F).fieldOf("alpha").forGetter(Keyframe::getAlpha)
+    ).apply(instance, Keyframe::new));
+    private final int tick;
+    private final float alpha;
+
+    public Keyframe(int tick, float alpha) {
+        this.tick = tick;
+        this.alpha = alpha;
+    }
+
+    public int getTick() {
+        return this.tick;
+    }
+
+    public float getAlpha() {
+        return this.alpha;
+    }
+}
@@ -0,0 +1,55 @@
+package vice.customskyboxes.util.object;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+
+/**
+ * How a square textured skybox draws its six faces.
+ */
+public enum RenderMode {
+    /**
+     * Every face is drawn with its own texture.
+     */
+    FACES("faces"),
+    /**
+     * The six face textures are packed into one atlas texture, so the cube is drawn with a single bind.
+     */
+    ATLAS("atlas"),
+    /**
+     * The six faces are resampled into a cube map texture that is looked up by direction,
+     * so the cube is drawn with a single bind and without seams between the faces.
+     */
+    CUBEMAP("cubemap");
+
+    public static final Codec<RenderMode> CODEC = Codec.STRING.comapFlatMap(RenderMode::fromString, RenderMode::toString);
+    private static final Map<String, RenderMode> VALUES;
+    private final String name;
+
+    RenderMode(String name) {
+        this.name = name;
+    }
+
+    public static DataResult<RenderMode> fromString(String name) {
+        RenderMode mode = VALUES.get(name);
+        if (mode == null) {
+            return DataResult.error("Unknown render mode " + name);
+        }
+        return DataResult.success(mode);
+    }
+
+    static {
+        ImmutableMap.Builder<String, RenderMode> builder = ImmutableMap.builder();
+        for (RenderMode value : values()) {
+            builder.put(value.name, value);
+        }
+        VALUES = builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
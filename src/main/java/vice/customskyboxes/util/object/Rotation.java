@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.minecraft.util.math.vector.Quaternion;
 import net.minecraft.util.math.vector.Vector3f;
 
 public class Rotation {
@@ -24,10 +25,27 @@ public class Rotation {
     private final Vector3f axisRot;
     private final float rotationSpeed;
 
+    // the rotations above as quaternions, computed once as they never change
+    private final Quaternion staticQuaternion;
+    private final Quaternion axisQuaternion;
+    private final Quaternion axisInverseQuaternion;
+
     public Rotation(Vector3f staticRot, Vector3f axisRot, float rotationSpeed) {
         this.staticRot = staticRot;
         this.axisRot = axisRot;
         this.rotationSpeed = rotationSpeed;
+
+        this.staticQuaternion = Vector3f.XP.rotationDegrees(staticRot.x());
+        this.staticQuaternion.mul(Vector3f.YP.rotationDegrees(staticRot.y()));
+        this.staticQuaternion.mul(Vector3f.ZP.rotationDegrees(staticRot.z()));
+
+        this.axisQuaternion = Vector3f.XP.rotationDegrees(axisRot.x());
+        this.axisQuaternion.mul(Vector3f.YP.rotationDegrees(axisRot.y()));
+        this.axisQuaternion.mul(Vector3f.ZP.rotationDegrees(axisRot.z()));
+
+        this.axisInverseQuaternion = Vector3f.ZN.rotationDegrees(axisRot.z());
+        this.axisInverseQuaternion.mul(Vector3f.YN.rotationDegrees(axisRot.y()));
+        this.axisInverseQuaternion.mul(Vector3f.XN.rotationDegrees(axisRot.x()));
     }
 
     public Vector3f getStatic() {
@@ -41,4 +59,25 @@ public class Rotation {
     public float getRotationSpeed() {
         return rotationSpeed;
     }
+
+    /**
+     * @return The static rotation, applied around the x, then y, then z axis. Must not be modified.
+     */
+    public Quaternion getStaticQuaternion() {
+        return this.staticQuaternion;
+    }
+
+    /**
+     * @return The rotation that turns the y axis into the axis of the time rotation. Must not be modified.
+     */
+    public Quaternion getAxisQuaternion() {
+        return this.axisQuaternion;
+    }
+
+    /**
+     * @return The inverse of {@link #getAxisQuaternion()}. Must not be modified.
+     */
+    public Quaternion getAxisInverseQuaternion() {
+        return this.axisInverseQuaternion;
+    }
 }
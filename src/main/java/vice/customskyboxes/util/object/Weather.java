@@ -1,5 +1,6 @@
 package vice.customskyboxes.util.object;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 
@@ -24,6 +25,27 @@ public enum Weather {
         return Objects.requireNonNull(VALUES.get(name));
     }
 
+    /**
+     * @return The bit of this weather in a weather mask.
+     */
+    public int getMask() {
+        return 1 << this.ordinal();
+    }
+
+    /**
+     * Builds a weather mask out of weather names, skipping names that aren't known.
+     */
+    public static int maskOf(Collection<String> names) {
+        int mask = 0;
+        for (String name : names) {
+            Weather weather = VALUES.get(name);
+            if (weather != null) {
+                mask |= weather.getMask();
+            }
+        }
+        return mask;
+    }
+
     static {
         ImmutableMap.Builder<String, Weather> builder = ImmutableMap.builder();
         for (Weather value : values()) {
@@ -0,0 +1,112 @@
+package vice.customskyboxes.render;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AnimationClockTest {
+    private static final long MILLIS = 1_000_000L;
+    private static final int FRAMES = 10;
+
+    /**
+     * A clock driven by hand, one render frame at a time.
+     */
+    private static class FakeClock {
+        private final AnimationClock clock;
+        private long nanoTime = 123_456_789L;
+        private long renderFrame = 1000;
+
+        FakeClock(float fps) {
+            this.clock = new AnimationClock(fps, false);
+        }
+
+        /**
+         * Moves to the next render frame, the given time after the current one.
+         */
+        FakeClock render(long millis) {
+            this.nanoTime += millis * MILLIS;
+            this.renderFrame++;
+            return this;
+        }
+
+        /**
+         * Moves ahead several render frames in which the skybox was not drawn.
+         */
+        FakeClock skip(int renders, long millis) {
+            this.nanoTime += millis * MILLIS;
+            this.renderFrame += renders;
+            return this;
+        }
+
+        int frame(float alpha) {
+            return this.clock.getFrame(FRAMES, this.nanoTime, this.renderFrame, alpha, 0, 0);
+        }
+    }
+
+    @Test
+    void catchesUpAtLowFrameRates() {
+        // 10 fps animation rendered at 2 fps skips frames rather than slowing down
+        FakeClock clock = new FakeClock(10);
+        assertEquals(0, clock.render(0).frame(1));
+        assertEquals(5, clock.render(500).frame(1));
+        assertEquals(0, clock.render(500).frame(1));
+        assertEquals(7, clock.render(1700).frame(1));
+    }
+
+    @Test
+    void pausesWhileInvisible() {
+        FakeClock clock = new FakeClock(10);
+        clock.render(0).frame(1);
+        assertEquals(3, clock.render(300).frame(1));
+        assertEquals(3, clock.render(400).frame(0));
+        assertEquals(3, clock.render(400).frame(0));
+        // only the time since the last invisible render counts once visible again
+        assertEquals(4, clock.render(100).frame(1));
+    }
+
+    @Test
+    void advancesOncePerRenderFrame() {
+        FakeClock clock = new FakeClock(10);
+        clock.render(0).frame(1);
+        clock.render(200);
+        assertEquals(2, clock.frame(1));
+        // drawn again in the same render frame, such as for a reflection, later in real time
+        clock.nanoTime += 150 * MILLIS;
+        assertEquals(2, clock.frame(1));
+        assertEquals(2, clock.frame(1));
+        // the time spent within the previous render frame counts from its first call
+        assertEquals(5, clock.render(150).frame(1));
+    }
+
+    @Test
+    void skippedRendersDoNotAdvance() {
+        FakeClock clock = new FakeClock(10);
+        clock.render(0).frame(1);
+        assertEquals(1, clock.render(100).frame(1));
+        // not drawn for a while, e.g. while another dimension was shown
+        assertEquals(1, clock.skip(50, 5000).frame(1));
+        assertEquals(3, clock.render(200).frame(1));
+    }
+
+    @Test
+    void syncsToNegativeDayTimes() {
+        // one frame per tick
+        AnimationClock clock = new AnimationClock(20, true);
+        assertEquals(0, clock.getFrame(FRAMES, 0, 0, 1, 0, 0));
+        assertEquals(9, clock.getFrame(FRAMES, 0, 0, 1, -1, 0));
+        // half a tick before zero is still in the last frame
+        assertEquals(9, clock.getFrame(FRAMES, 0, 0, 1, -1, 0.5F));
+        assertEquals(8, clock.getFrame(FRAMES, 0, 0, 1, -2, 0.5F));
+        assertEquals(0, clock.getFrame(FRAMES, 0, 0, 1, -10, 0));
+        // whole loops before and after frame 5
+        assertEquals(5, clock.getFrame(FRAMES, 0, 0, 1, -24005, 0));
+        assertEquals(5, clock.getFrame(FRAMES, 0, 0, 1, 24005, 0));
+    }
+
+    @Test
+    void syncedFramesIgnoreRenderFramesAndAlpha() {
+        AnimationClock clock = new AnimationClock(20, true);
+        assertEquals(3, clock.getFrame(FRAMES, 0, 5, 0, 13, 0));
+        assertEquals(3, clock.getFrame(FRAMES, 999 * MILLIS, 100, 1, 13, 0.25F));
+    }
+}
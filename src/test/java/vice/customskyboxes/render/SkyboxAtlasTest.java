@@ -0,0 +1,65 @@
+package vice.customskyboxes.render;
+
+import net.minecraft.util.ResourceLocation;
+import org.junit.jupiter.api.Test;
+import vice.customskyboxes.util.object.Texture;
+import vice.customskyboxes.util.object.Textures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SkyboxAtlasTest {
+    private static final float EPSILON = 1.0E-6F;
+    private static final ResourceLocation ATLAS = new ResourceLocation("test", "atlas");
+
+    private static Textures faces(float minU, float minV, float maxU, float maxV) {
+        return new Textures(
+                new Texture(new ResourceLocation("test", "north"), minU, minV, maxU, maxV),
+                new Texture(new ResourceLocation("test", "south"), minU, minV, maxU, maxV),
+                new Texture(new ResourceLocation("test", "east"), minU, minV, maxU, maxV),
+                new Texture(new ResourceLocation("test", "west"), minU, minV, maxU, maxV),
+                new Texture(new ResourceLocation("test", "top"), minU, minV, maxU, maxV),
+                new Texture(new ResourceLocation("test", "bottom"), minU, minV, maxU, maxV)
+        );
+    }
+
+    @Test
+    void wholeFacesFillTheirCells() {
+        Textures remapped = SkyboxAtlas.remap(ATLAS, faces(0, 0, 1, 1));
+        for (int i = 0; i < 6; i++) {
+            Texture face = remapped.byId(i);
+            int column = i % 3;
+            int row = i / 3;
+            assertEquals(ATLAS, face.getTextureId());
+            assertEquals(column / 3.0F, face.getMinU(), EPSILON, "minU of face " + i);
+            assertEquals(row / 2.0F, face.getMinV(), EPSILON, "minV of face " + i);
+            assertEquals((column + 1) / 3.0F, face.getMaxU(), EPSILON, "maxU of face " + i);
+            assertEquals((row + 1) / 2.0F, face.getMaxV(), EPSILON, "maxV of face " + i);
+        }
+    }
+
+    @Test
+    void partialFacesStayWithinTheirCells() {
+        Textures remapped = SkyboxAtlas.remap(ATLAS, faces(0.25F, 0.5F, 0.75F, 1));
+        for (int i = 0; i < 6; i++) {
+            Texture face = remapped.byId(i);
+            int column = i % 3;
+            int row = i / 3;
+            assertEquals((column + 0.25F) / 3.0F, face.getMinU(), EPSILON, "minU of face " + i);
+            assertEquals((row + 0.5F) / 2.0F, face.getMinV(), EPSILON, "minV of face " + i);
+            assertEquals((column + 0.75F) / 3.0F, face.getMaxU(), EPSILON, "maxU of face " + i);
+            assertEquals((row + 1) / 2.0F, face.getMaxV(), EPSILON, "maxV of face " + i);
+        }
+    }
+
+    @Test
+    void facesKeepTheirSide() {
+        Textures faces = faces(0, 0, 1, 1);
+        Textures remapped = SkyboxAtlas.remap(ATLAS, faces);
+        // the north face is byId(1), so it goes to the second column of the first row
+        assertEquals(1 / 3.0F, remapped.getNorth().getMinU(), EPSILON);
+        assertEquals(0, remapped.getNorth().getMinV(), EPSILON);
+        // the west face is byId(5), the last column of the second row
+        assertEquals(2 / 3.0F, remapped.getWest().getMinU(), EPSILON);
+        assertEquals(0.5F, remapped.getWest().getMinV(), EPSILON);
+    }
+}
@@ -0,0 +1,105 @@
+package vice.customskyboxes.resource;
+
+import com.google.gson.JsonElement;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.util.ResourceLocation;
+import org.junit.jupiter.api.Test;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.skyboxes.SkyboxType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SkyboxDecoderTest {
+    private static final String FADE = "\"fade\": {\"startFadeIn\": 1000, \"endFadeIn\": 2000, \"startFadeOut\": 3000, \"endFadeOut\": 4000}";
+
+    private static Map<ResourceLocation, byte[]> files() {
+        Map<ResourceLocation, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < 64; i++) {
+            String json;
+            switch (i % 4) {
+                case 0:
+                    json = "{\"schemaVersion\": 2, \"type\": \"monocolor\", \"properties\": {" + FADE + ", \"priority\": " + i + "},"
+                            + " \"color\": {\"red\": " + (i / 64.0F) + ", \"green\": 0.5, \"blue\": 0.25}}";
+                    break;
+                case 1:
+                    json = "{\"schemaVersion\": 2, \"type\": \"square-textured\", \"properties\": {" + FADE + "}, \"textures\": {"
+                            + "\"north\": \"test:north_" + i + ".png\", \"south\": \"test:south.png\", \"east\": \"test:east.png\","
+                            + " \"west\": \"test:west.png\", \"top\": \"test:top.png\", \"bottom\": \"test:bottom.png\"}}";
+                    break;
+                case 2:
+                    // falls back to the codecs, as the streaming reader doesn't know the field
+                    json = "{\"schemaVersion\": 2, \"type\": \"monocolor\", \"properties\": {" + FADE + "}, \"unknownField\": " + i + "}";
+                    break;
+                default:
+                    json = i % 8 == 3 ? "{\"schemaVersion\": 2, \"type\": \"no-such-type\"}" : "{ not json";
+                    break;
+            }
+            files.put(new ResourceLocation("test", "sky/skybox_" + i + ".json"), json.getBytes(StandardCharsets.UTF_8));
+        }
+        return files;
+    }
+
+    @Test
+    void serialAndParallelDecodingAgree() {
+        Map<ResourceLocation, byte[]> files = files();
+
+        SkyboxDecodeReport serialReport = new SkyboxDecodeReport();
+        Map<ResourceLocation, AbstractSkybox> serial = SkyboxDecoder.decodeAll(files, Runnable::run, serialReport).join();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        SkyboxDecodeReport parallelReport = new SkyboxDecodeReport();
+        Map<ResourceLocation, AbstractSkybox> parallel;
+        try {
+            parallel = SkyboxDecoder.decodeAll(files, pool, parallelReport).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(new ArrayList<>(files.keySet()), new ArrayList<>(serial.keySet()));
+        assertEquals(new ArrayList<>(serial.keySet()), new ArrayList<>(parallel.keySet()));
+        assertEquals(encodeAll(serial), encodeAll(parallel));
+        assertEquals(serialReport.getEntries().size(), parallelReport.getEntries().size());
+    }
+
+    @Test
+    void invalidFilesMapToNull() {
+        Map<ResourceLocation, byte[]> files = files();
+        SkyboxDecodeReport report = new SkyboxDecodeReport();
+        Map<ResourceLocation, AbstractSkybox> skyboxes = SkyboxDecoder.decodeAll(files, Runnable::run, report).join();
+
+        int i = 0;
+        for (AbstractSkybox skybox : skyboxes.values()) {
+            if (i % 4 == 3) {
+                assertNull(skybox);
+            } else {
+                assertNotNull(skybox);
+            }
+            i++;
+        }
+        assertEquals(16, report.getEntries().size());
+    }
+
+    private static List<JsonElement> encodeAll(Map<ResourceLocation, AbstractSkybox> skyboxes) {
+        List<JsonElement> encoded = new ArrayList<>(skyboxes.size());
+        for (AbstractSkybox skybox : skyboxes.values()) {
+            encoded.add(skybox == null ? null : encode(skybox));
+        }
+        return encoded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends AbstractSkybox> JsonElement encode(AbstractSkybox skybox) {
+        SkyboxType<T> type = (SkyboxType<T>) skybox.getType();
+        return type.getCodec(type.getLatestSchemaVersion()).encodeStart(JsonOps.INSTANCE, (T) skybox).result().orElseThrow(AssertionError::new);
+    }
+}
@@ -0,0 +1,48 @@
+package vice.customskyboxes.skyboxes.textured;
+
+import net.minecraft.util.ResourceLocation;
+import org.junit.jupiter.api.Test;
+import vice.customskyboxes.resource.SkyboxDecodeReport;
+import vice.customskyboxes.resource.SkyboxDecoder;
+import vice.customskyboxes.skyboxes.AbstractSkybox;
+import vice.customskyboxes.util.object.RenderMode;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that animated skyboxes stay out of the render modes they can't be drawn in. The frames
+ * of the frame cache are dynamic textures, which atlases and cube maps can't be built from.
+ */
+class AnimatedRenderModeTest {
+    private static final String PROPERTIES = "\"properties\": {\"fade\": {\"startFadeIn\": 1000, \"endFadeIn\": 2000, \"startFadeOut\": 3000, \"endFadeOut\": 4000}}";
+    private static final String FACES = "{\"north\": \"test:north.png\", \"south\": \"test:south.png\", \"east\": \"test:east.png\","
+            + " \"west\": \"test:west.png\", \"top\": \"test:top.png\", \"bottom\": \"test:bottom.png\"}";
+
+    private static SquareTexturedSkybox decode(String type, String fields, String renderMode) {
+        String json = "{\"schemaVersion\": 2, \"type\": \"" + type + "\", " + PROPERTIES + ", " + fields + ", \"renderMode\": \"" + renderMode + "\"}";
+        AbstractSkybox skybox = SkyboxDecoder.decodeFile(new ResourceLocation("test", "sky/" + type + ".json"), json.getBytes(StandardCharsets.UTF_8), new SkyboxDecodeReport());
+        assertNotNull(skybox, type + " in " + renderMode + " mode");
+        return (SquareTexturedSkybox) skybox;
+    }
+
+    @Test
+    void frameListsFallBackToFaces() {
+        for (String renderMode : new String[]{"atlas", "cubemap"}) {
+            assertEquals(RenderMode.FACES, decode("animated-square-textured",
+                    "\"animationTextures\": [" + FACES + ", " + FACES + "], \"fps\": 10", renderMode).getRenderMode());
+            assertEquals(RenderMode.FACES, decode("single-sprite-animated-square-textured",
+                    "\"animationTextures\": [\"test:frame_0.png\", \"test:frame_1.png\"], \"fps\": 10", renderMode).getRenderMode());
+        }
+    }
+
+    @Test
+    void spriteSheetsFallBackToFacesForCubemaps() {
+        String sheet = "\"texture\": \"test:sheet.png\", \"columns\": 2, \"rows\": 2, \"frameCount\": 4, \"fps\": 10";
+        assertEquals(RenderMode.FACES, decode("sprite-sheet-animated-square-textured", sheet, "cubemap").getRenderMode());
+        // all faces already share the sheet, so the atlas is the sheet itself
+        assertEquals(RenderMode.ATLAS, decode("sprite-sheet-animated-square-textured", sheet, "atlas").getRenderMode());
+    }
+}
@@ -0,0 +1,108 @@
+package vice.customskyboxes.util.object;
+
+import org.junit.jupiter.api.Test;
+import vice.customskyboxes.util.Utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the compiled trapezoid fades with the trapezoid formula skyboxes evaluated every
+ * frame before, which the compiled segments must reproduce exactly.
+ */
+class FadeTest {
+    private static void assertMatchesFormula(Fade fade) {
+        for (int tick = 0; tick < 24000; tick++) {
+            assertEquals(formula(fade, tick), fade.getAlphaAt(tick), "alpha at tick " + tick);
+        }
+    }
+
+    /**
+     * The trapezoid formula as it was, for days of 24000 ticks.
+     */
+    private static float formula(Fade fade, long dayTime) {
+        int currentTime = (int) dayTime % 24000; // modulo so that it's bound to 24000
+        int durationin = Utils.getTicksBetween(fade.getStartFadeIn(), fade.getEndFadeIn());
+        int durationout = Utils.getTicksBetween(fade.getStartFadeOut(), fade.getEndFadeOut());
+
+        int startFadeIn = fade.getStartFadeIn() % 24000;
+        int endFadeIn = fade.getEndFadeIn() % 24000;
+
+        if (endFadeIn < startFadeIn) {
+            endFadeIn += 24000;
+        }
+
+        int startFadeOut = fade.getStartFadeOut() % 24000;
+        int endFadeOut = fade.getEndFadeOut() % 24000;
+
+        if (startFadeOut < endFadeIn) {
+            startFadeOut += 24000;
+        }
+
+        if (endFadeOut < startFadeOut) {
+            endFadeOut += 24000;
+        }
+
+        int tempInTime = currentTime;
+
+        if (tempInTime < startFadeIn) {
+            tempInTime += 24000;
+        }
+
+        int tempFullTime = currentTime;
+
+        if (tempFullTime < endFadeIn) {
+            tempFullTime += 24000;
+        }
+
+        int tempOutTime = currentTime;
+
+        if (tempOutTime < startFadeOut) {
+            tempOutTime += 24000;
+        }
+
+        if (startFadeIn < tempInTime && endFadeIn >= tempInTime) {
+            return 1f - (((float) (endFadeIn - tempInTime)) / durationin); // fading in
+        } else if (endFadeIn < tempFullTime && startFadeOut >= tempFullTime) {
+            return 1f; // fully faded in
+        } else if (startFadeOut < tempOutTime && endFadeOut >= tempOutTime) {
+            return (float) (endFadeOut - tempOutTime) / durationout; // fading out
+        } else {
+            return 0f; // default not showing
+        }
+    }
+
+    @Test
+    void normalTrapezoids() {
+        assertMatchesFormula(new Fade(1000, 2000, 3000, 4000, false));
+        assertMatchesFormula(new Fade(0, 6000, 12000, 18000, false));
+        assertMatchesFormula(new Fade(100, 7, 5000, 23999, false));
+        // fade points past the end of the day wrap into it
+        assertMatchesFormula(new Fade(25000, 26000, 30000, 47999, false));
+    }
+
+    @Test
+    void trapezoidsWrappingAroundMidnight() {
+        assertMatchesFormula(new Fade(22000, 1000, 3000, 4000, false));
+        assertMatchesFormula(new Fade(13000, 14000, 22000, 2000, false));
+        assertMatchesFormula(new Fade(18000, 20000, 4000, 6000, false));
+        assertMatchesFormula(new Fade(23999, 0, 23000, 23500, false));
+    }
+
+    @Test
+    void zeroLengthRamps() {
+        assertMatchesFormula(new Fade(1000, 1000, 3000, 4000, false));
+        assertMatchesFormula(new Fade(1000, 2000, 3000, 3000, false));
+        assertMatchesFormula(new Fade(1000, 1000, 3000, 3000, false));
+        // fading out right where the fade in ends
+        assertMatchesFormula(new Fade(1000, 2000, 2000, 4000, false));
+        assertMatchesFormula(new Fade(0, 0, 0, 0, false));
+    }
+
+    @Test
+    void alwaysOnTrapezoids() {
+        // getAlphaAt ignores alwaysOn, so these still follow the formula
+        assertMatchesFormula(new Fade(1000, 2000, 3000, 4000, true));
+        assertMatchesFormula(new Fade(22000, 1000, 3000, 4000, true));
+        assertMatchesFormula(Fade.ZERO);
+    }
+}
@@ -0,0 +1,151 @@
+package vice.customskyboxes.util.object;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import net.minecraft.util.math.vector.Matrix4f;
+import net.minecraft.util.math.vector.Vector3f;
+import net.minecraft.util.math.vector.Vector4f;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the precomputed quaternions of {@link Rotation} with the chains of single axis
+ * rotations they replaced.
+ */
+class RotationTest {
+    private static final float EPSILON = 1.0E-4F;
+    private static final Rotation[] ROTATIONS = {
+            Rotation.DEFAULT,
+            new Rotation(new Vector3f(0, 0, 0), new Vector3f(0, 0, 90), 1),
+            new Rotation(new Vector3f(30, 45, 60), new Vector3f(10, 20, 30), 0.5F),
+            new Rotation(new Vector3f(-90, 10, 170), new Vector3f(45, -135, 90), -2),
+            new Rotation(new Vector3f(360, 270, -45), new Vector3f(90, 90, 90), 3)
+    };
+    private static final float[] TIMES = {0, 0.25F, 0.5F, 0.73F, 1};
+    private static final Vector4f[] POINTS = {
+            new Vector4f(1, 0, 0, 1),
+            new Vector4f(0, 1, 0, 1),
+            new Vector4f(0, 0, 1, 1),
+            new Vector4f(100, -100, 37, 1)
+    };
+
+    @Test
+    void quaternionsMatchAxisChains() {
+        for (Rotation rotation : ROTATIONS) {
+            Vector3f staticRot = rotation.getStatic();
+            Vector3f axis = rotation.getAxis();
+
+            MatrixStack expected = new MatrixStack();
+            expected.mulPose(Vector3f.XP.rotationDegrees(staticRot.x()));
+            expected.mulPose(Vector3f.YP.rotationDegrees(staticRot.y()));
+            expected.mulPose(Vector3f.ZP.rotationDegrees(staticRot.z()));
+            MatrixStack actual = new MatrixStack();
+            actual.mulPose(rotation.getStaticQuaternion());
+            assertSamePose(expected, actual, "static");
+
+            expected = new MatrixStack();
+            expected.mulPose(Vector3f.XP.rotationDegrees(axis.x()));
+            expected.mulPose(Vector3f.YP.rotationDegrees(axis.y()));
+            expected.mulPose(Vector3f.ZP.rotationDegrees(axis.z()));
+            actual = new MatrixStack();
+            actual.mulPose(rotation.getAxisQuaternion());
+            assertSamePose(expected, actual, "axis");
+
+            expected = new MatrixStack();
+            expected.mulPose(Vector3f.ZN.rotationDegrees(axis.z()));
+            expected.mulPose(Vector3f.YN.rotationDegrees(axis.y()));
+            expected.mulPose(Vector3f.XN.rotationDegrees(axis.x()));
+            actual = new MatrixStack();
+            actual.mulPose(rotation.getAxisInverseQuaternion());
+            assertSamePose(expected, actual, "axis inverse");
+
+            // the axis and its inverse cancel out
+            actual = new MatrixStack();
+            actual.mulPose(rotation.getAxisQuaternion());
+            actual.mulPose(rotation.getAxisInverseQuaternion());
+            assertSamePose(new MatrixStack(), actual, "axis times inverse");
+        }
+    }
+
+    @Test
+    void texturedSkyboxPoseMatchesAxisChains() {
+        for (Rotation rotation : ROTATIONS) {
+            Vector3f staticRot = rotation.getStatic();
+            Vector3f axis = rotation.getAxis();
+            for (float time : TIMES) {
+                float timeRotation = time * 360;
+
+                MatrixStack expected = new MatrixStack();
+                expected.mulPose(Vector3f.XP.rotationDegrees(axis.x()));
+                expected.mulPose(Vector3f.YP.rotationDegrees(axis.y()));
+                expected.mulPose(Vector3f.ZP.rotationDegrees(axis.z()));
+                expected.mulPose(Vector3f.YP.rotationDegrees(timeRotation * rotation.getRotationSpeed()));
+                expected.mulPose(Vector3f.ZN.rotationDegrees(axis.z()));
+                expected.mulPose(Vector3f.YN.rotationDegrees(axis.y()));
+                expected.mulPose(Vector3f.XN.rotationDegrees(axis.x()));
+                expected.mulPose(Vector3f.XP.rotationDegrees(staticRot.x()));
+                expected.mulPose(Vector3f.YP.rotationDegrees(staticRot.y()));
+                expected.mulPose(Vector3f.ZP.rotationDegrees(staticRot.z()));
+
+                MatrixStack actual = new MatrixStack();
+                actual.mulPose(rotation.getAxisQuaternion());
+                actual.mulPose(Vector3f.YP.rotationDegrees(timeRotation * rotation.getRotationSpeed()));
+                actual.mulPose(rotation.getAxisInverseQuaternion());
+                actual.mulPose(rotation.getStaticQuaternion());
+
+                assertSamePose(expected, actual, "textured skybox at " + time);
+            }
+        }
+    }
+
+    @Test
+    void decorationPoseMatchesAxisChains() {
+        for (Rotation rotation : ROTATIONS) {
+            Vector3f staticRot = rotation.getStatic();
+            Vector3f axis = rotation.getAxis();
+            for (float time : TIMES) {
+                float sunRotation = time * 360.0F * rotation.getRotationSpeed();
+
+                MatrixStack expected = new MatrixStack();
+                expected.mulPose(Vector3f.XP.rotationDegrees(staticRot.x()));
+                expected.mulPose(Vector3f.YP.rotationDegrees(staticRot.y()));
+                expected.mulPose(Vector3f.ZP.rotationDegrees(staticRot.z()));
+                expected.mulPose(Vector3f.XP.rotationDegrees(axis.x()));
+                expected.mulPose(Vector3f.YP.rotationDegrees(axis.y()));
+                expected.mulPose(Vector3f.ZP.rotationDegrees(axis.z()));
+                expected.mulPose(Vector3f.YP.rotationDegrees(-90.0F));
+                expected.mulPose(Vector3f.XP.rotationDegrees(sunRotation));
+                expected.mulPose(Vector3f.ZN.rotationDegrees(axis.z()));
+                expected.mulPose(Vector3f.YN.rotationDegrees(axis.y()));
+                expected.mulPose(Vector3f.XN.rotationDegrees(axis.x()));
+
+                MatrixStack actual = new MatrixStack();
+                actual.mulPose(rotation.getStaticQuaternion());
+                actual.mulPose(rotation.getAxisQuaternion());
+                actual.mulPose(Vector3f.YP.rotationDegrees(-90.0F));
+                actual.mulPose(Vector3f.XP.rotationDegrees(sunRotation));
+                actual.mulPose(rotation.getAxisInverseQuaternion());
+
+                assertSamePose(expected, actual, "decorations at " + time);
+            }
+        }
+    }
+
+    /**
+     * Compares two poses by where they move a few sample points.
+     */
+    private static void assertSamePose(MatrixStack expected, MatrixStack actual, String message) {
+        Matrix4f expectedPose = expected.last().pose();
+        Matrix4f actualPose = actual.last().pose();
+        for (Vector4f point : POINTS) {
+            Vector4f expectedPoint = new Vector4f(point.x(), point.y(), point.z(), point.w());
+            expectedPoint.transform(expectedPose);
+            Vector4f actualPoint = new Vector4f(point.x(), point.y(), point.z(), point.w());
+            actualPoint.transform(actualPose);
+            float tolerance = EPSILON * Math.max(1, Math.abs(point.x()) + Math.abs(point.y()) + Math.abs(point.z()));
+            assertEquals(expectedPoint.x(), actualPoint.x(), tolerance, message);
+            assertEquals(expectedPoint.y(), actualPoint.y(), tolerance, message);
+            assertEquals(expectedPoint.z(), actualPoint.z(), tolerance, message);
+        }
+    }
+}